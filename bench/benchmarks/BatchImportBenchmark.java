@@ -0,0 +1,67 @@
+package benchmarks;
+
+import managers.Durability;
+import managers.FileBackedTaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Импорт count задач со временем в пустой FileBackedTaskManager: по одной или одним пакетом.
+// SNAPSHOT - обычный режим, где каждое изменение перезаписывает файл, SYNC - журнал с fsync на запись
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchImportBenchmark {
+    public enum Persistence { SNAPSHOT, SYNC }
+
+    @Param({"1000"})
+    private int count;
+
+    @Param({"SNAPSHOT", "SYNC"})
+    private Persistence mode;
+
+    private File file;
+    private FileBackedTaskManager manager;
+    private List<Task> batch;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        file = File.createTempFile("benchmark-import", ".csv");
+        manager = mode == Persistence.SNAPSHOT ? new FileBackedTaskManager(file)
+                : new FileBackedTaskManager(file, Durability.SYNC);
+        manager.setCompactionThreshold(Integer.MAX_VALUE);
+        batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(BenchmarkData.timedTask(i));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        manager.close();
+        new File(file.getPath() + ".journal").delete();
+        file.delete();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager createOneByOne() {
+        for (Task task : batch) {
+            manager.createTask(task);
+        }
+        return manager;
+    }
+
+    @Benchmark
+    public FileBackedTaskManager createAll() {
+        manager.createAll(batch);
+        return manager;
+    }
+}
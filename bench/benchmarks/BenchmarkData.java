@@ -0,0 +1,42 @@
+package benchmarks;
+
+import managers.TaskManager;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Общие генераторы данных: одинаковые наборы для всех прогонов, чтобы результаты были сравнимы
+final class BenchmarkData {
+    static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+    static final int SUBTASKS_PER_EPIC = 10;
+
+    private BenchmarkData() {
+    }
+
+    static Task timedTask(int index) {
+        Task task = new Task("Task " + index, "Benchmark task description " + index);
+        task.setStatus(Status.values()[index % Status.values().length]);
+        task.setStartTime(START.plusMinutes(15L * index));
+        task.setDuration(Duration.ofMinutes(10));
+        return task;
+    }
+
+    // size задач со временем, а также size / SUBTASKS_PER_EPIC эпиков с подзадачами без времени
+    static void fill(TaskManager manager, int size) {
+        for (int i = 0; i < size; i++) {
+            manager.createTask(timedTask(i));
+        }
+        for (int i = 0; i < size / SUBTASKS_PER_EPIC; i++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + i, "Benchmark epic " + i));
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                Subtask subtask = new Subtask("Subtask " + j, "Benchmark subtask " + j, epic.getId());
+                subtask.setStatus(Status.values()[j % Status.values().length]);
+                manager.createSubtask(subtask);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import managers.BufferedHistoryManager;
+import managers.ConcurrentTaskManager;
+import managers.HistoryManager;
+import managers.InMemoryHistoryManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// getTaskById из нескольких потоков: каждый просмотр пишет в историю,
+// history - синхронизированная история (SYNCHRONIZED) или буферизованная (BUFFERED)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentReadBenchmark {
+    @Param({"SYNCHRONIZED", "BUFFERED"})
+    private String history;
+
+    private ConcurrentTaskManager manager;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HistoryManager historyManager = new InMemoryHistoryManager(1_000);
+        if ("BUFFERED".equals(history)) {
+            historyManager = new BufferedHistoryManager(historyManager);
+        }
+        manager = new ConcurrentTaskManager(historyManager);
+        ids = new int[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = manager.createTask(new Task("Task " + i, "Read benchmark")).getId();
+        }
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import managers.FileBackedTaskManager;
+import managers.SnapshotFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Полная запись снимка и загрузка из файла для менеджера размера size в каждом из форматов снимка
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBackedBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat format;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("benchmark-tasks", ".csv");
+        file.deleteOnExit();
+        manager = new FileBackedTaskManager(file, true);
+        manager.setCompactionThreshold(Integer.MAX_VALUE);
+        manager.setSnapshotFormat(format);
+        BenchmarkData.fill(manager, size);
+        manager.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+        new File(file.getPath() + ".journal").delete();
+    }
+
+    // Запись снимка - то же, что делает save() на каждой операции в обычном режиме
+    @Benchmark
+    public void save() {
+        manager.compact();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import managers.Durability;
+import managers.FileBackedTaskManager;
+import managers.SynchronizedTaskManager;
+import managers.TaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Создание задачи с ожиданием подтверждения записи, как в POST /tasks, из 8 потоков через SynchronizedTaskManager
+// (так HTTP-сервер обращается к FileBackedTaskManager). В SYNC каждая запись сбрасывается своим fsync под
+// блокировкой менеджера, в GROUP_COMMIT записи, пришедшие во время сброса, уходят следующим общим fsync.
+// После прогона печатается среднее число записей на один fsync
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+    @Param({"SYNC", "GROUP_COMMIT"})
+    private Durability durability;
+
+    private File file;
+    private FileBackedTaskManager fileManager;
+    private TaskManager manager;
+    private final AtomicLong writes = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("benchmark-journal", ".csv");
+        file.deleteOnExit();
+        fileManager = new FileBackedTaskManager(file, durability);
+        fileManager.setCompactionThreshold(Integer.MAX_VALUE);
+        manager = new SynchronizedTaskManager(fileManager);
+        writes.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long syncs = fileManager.getJournalSyncCount();
+        System.out.printf("%n%s: %d записей, %d fsync, %.1f записей на fsync%n",
+                durability, writes.get(), syncs, (double) writes.get() / Math.max(1, syncs));
+        fileManager.close();
+        new File(file.getPath() + ".journal").delete();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void createAndAwaitCommit() {
+        manager.createTask(new Task("Task", "Description"));
+        manager.getCommitFuture().join();
+        writes.incrementAndGet();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import managers.InMemoryTaskManager;
+import tasks.Task;
+
+// Занятая куча для менеджера с count задачами без времени и с полной историей просмотров.
+// Не JMH-бенчмарк: запускается как обычная программа, count можно передать первым аргументом.
+public final class HeapFootprint {
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long baseline = usedHeap();
+        Task[] tasks = new Task[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new Task("Task", "Footprint");
+        }
+        long withTasks = usedHeap();
+
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (Task task : tasks) {
+            manager.createTask(task);
+        }
+        long withManager = usedHeap();
+
+        for (Task task : tasks) {
+            manager.getTaskById(task.getId());
+        }
+        long withHistory = usedHeap();
+
+        System.out.printf("tasks: %d%n", count);
+        System.out.printf("task objects:   %,d bytes (%.1f per task)%n", withTasks - baseline,
+                (double) (withTasks - baseline) / count);
+        System.out.printf("manager maps:   %,d bytes (%.1f per task)%n", withManager - withTasks,
+                (double) (withManager - withTasks) / count);
+        System.out.printf("history:        %,d bytes (%.1f per task)%n", withHistory - withManager,
+                (double) (withHistory - withManager) / count);
+        // Держим ссылки до конца замеров
+        System.out.println(manager.getHistory(1).size() + tasks.length - count);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import managers.InMemoryHistoryManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Запись просмотра и чтение истории при size различных просмотренных задачах
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private InMemoryHistoryManager historyManager;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = new InMemoryHistoryManager();
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = BenchmarkData.timedTask(i);
+            tasks[i].setId(i + 1);
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    @Benchmark
+    public Task add() {
+        cursor = (cursor + 1) % size;
+        historyManager.add(tasks[cursor]);
+        return tasks[cursor];
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Последние 20 просмотров - типичный запрос /history?limit=20
+    @Benchmark
+    public List<Task> getRecentHistory() {
+        return historyManager.getHistory(20);
+    }
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import http.HttpTaskServer;
+import http.TaskJsonCache;
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Epic;
+import tasks.Task;
+import utils.DurationTypeAdapter;
+import utils.LocalDateTimeTypeAdapter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация ответов так же, как в BaseHttpHandler: строкой (sendText) и потоком (sendJson)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    @Param({"100", "10000"})
+    private int size;
+
+    // STREAMING - общий Gson обработчиков с потоковыми адаптерами задач, REFLECTIVE - прежняя конфигурация
+    @Param({"STREAMING", "REFLECTIVE"})
+    private Adapters adapters;
+
+    public enum Adapters { STREAMING, REFLECTIVE }
+
+    private Gson gson;
+
+    private List<Task> tasks;
+    private List<Epic> epics;
+    private Task task;
+    private String tasksJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = adapters == Adapters.STREAMING ? HttpTaskServer.getGson() : new GsonBuilder()
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        tasks = manager.getAllTasks();
+        epics = manager.getAllEpics();
+        task = tasks.get(0);
+        tasksJson = gson.toJson(tasks);
+    }
+
+    @Benchmark
+    public byte[] singleTaskToBytes() {
+        return gson.toJson(task).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] taskListToBytes() {
+        return gson.toJson(tasks).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] epicListToBytes() {
+        return gson.toJson(epics).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Как ответ обработчика на GET /tasks/{id} и GET /tasks при неизменных задачах
+    @Benchmark
+    public byte[] singleTaskFromCache() {
+        return TaskJsonCache.toJson(task);
+    }
+
+    @Benchmark
+    public void taskListFromCache(Blackhole blackhole) {
+        for (Task cached : tasks) {
+            blackhole.consume(TaskJsonCache.toJson(cached));
+        }
+    }
+
+    @Benchmark
+    public byte[] epicListWithSubtaskIdsToBytes() {
+        return HttpTaskServer.getGsonWithSubtaskIds().toJson(epics).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void taskListToStream(Blackhole blackhole) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8)) {
+            gson.toJson(tasks, writer);
+        }
+    }
+
+    @Benchmark
+    public List<Task> taskListFromJson() {
+        return gson.fromJson(tasksJson, new TypeToken<List<Task>>() {}.getType());
+    }
+
+    private static class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}
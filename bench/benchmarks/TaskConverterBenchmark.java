@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Subtask;
+import tasks.Task;
+import utils.TaskConverter;
+
+import java.util.concurrent.TimeUnit;
+
+// Преобразование одной задачи в строку CSV и обратно
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskConverterBenchmark {
+    private Task task;
+    private Subtask subtask;
+    private String taskLine;
+    private String subtaskLine;
+    private Task quotedTask;
+    private String quotedLine;
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        task = BenchmarkData.timedTask(42);
+        task.setId(42);
+        subtask = new Subtask("Subtask", "Benchmark subtask description", 7);
+        subtask.setId(43);
+        subtask.setStartTime(BenchmarkData.START);
+        taskLine = TaskConverter.toString(task);
+        subtaskLine = TaskConverter.toString(subtask);
+        quotedTask = new Task("Title, with comma", "Description with \"quotes\"");
+        quotedTask.setId(44);
+        quotedLine = TaskConverter.toString(quotedTask);
+    }
+
+    @Benchmark
+    public String taskToString() {
+        return TaskConverter.toString(task);
+    }
+
+    @Benchmark
+    public String subtaskToString() {
+        return TaskConverter.toString(subtask);
+    }
+
+    // Запись в общий буфер, как при сохранении снимка
+    @Benchmark
+    public int taskAppendTo() {
+        buffer.setLength(0);
+        TaskConverter.appendTo(task, buffer);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public String quotedTaskToString() {
+        return TaskConverter.toString(quotedTask);
+    }
+
+    @Benchmark
+    public Task taskFromString() {
+        return TaskConverter.fromString(taskLine);
+    }
+
+    @Benchmark
+    public Task subtaskFromString() {
+        return TaskConverter.fromString(subtaskLine);
+    }
+
+    @Benchmark
+    public Task quotedTaskFromString() {
+        return TaskConverter.fromString(quotedLine);
+    }
+}
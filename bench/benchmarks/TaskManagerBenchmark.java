@@ -0,0 +1,66 @@
+package benchmarks;
+
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Операции InMemoryTaskManager на заполненном менеджере размера size
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private List<Task> tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        tasks = manager.getAllTasks();
+    }
+
+    private Task nextTask() {
+        cursor = (cursor + 1) % tasks.size();
+        return tasks.get(cursor);
+    }
+
+    // Создание и удаление задачи без времени - размер менеджера не меняется между вызовами
+    @Benchmark
+    public Task createAndDeleteTask() {
+        Task task = manager.createTask(new Task("New task", "Created by benchmark"));
+        manager.deleteTask(task.getId());
+        return task;
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(nextTask().getId());
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        Task task = nextTask();
+        manager.updateTask(task);
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return manager.getAllTasks();
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+}
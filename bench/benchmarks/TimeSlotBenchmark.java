@@ -0,0 +1,97 @@
+package benchmarks;
+
+import managers.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Проверка пересечений по времени (isTimeSlotAvailable) при растущем числе задач со временем
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeSlotBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        for (int i = 0; i < size; i++) {
+            manager.createTask(BenchmarkData.timedTask(i));
+        }
+    }
+
+    // Задача в свободном промежутке между существующими: проверка проходит, затем задача удаляется
+    @Benchmark
+    public Task createInFreeSlot() {
+        cursor = (cursor + 1) % size;
+        Task task = new Task("Gap task", "Fits between two tasks");
+        task.setStartTime(BenchmarkData.START.plusMinutes(15L * cursor + 10));
+        task.setDuration(Duration.ofMinutes(5));
+        manager.createTask(task);
+        manager.deleteTask(task.getId());
+        return task;
+    }
+
+    // Пересекающаяся задача: проверка отклоняет её
+    @Benchmark
+    public boolean rejectOverlapping() {
+        cursor = (cursor + 1) % size;
+        Task task = new Task("Overlapping task", "Overlaps an existing task");
+        task.setStartTime(BenchmarkData.START.plusMinutes(15L * cursor + 5));
+        task.setDuration(Duration.ofMinutes(10));
+        try {
+            manager.createTask(task);
+            manager.deleteTask(task.getId());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Окно в сутки (96 задач) через индекс интервалов
+    @Benchmark
+    public List<Task> tasksInDay() {
+        cursor = (cursor + 1) % size;
+        LocalDateTime from = BenchmarkData.START.plusMinutes(15L * cursor);
+        return manager.getTasksBetween(from, from.plusDays(1));
+    }
+
+    // То же окно так, как его раньше строил клиент: полный приоритетный список и фильтр
+    @Benchmark
+    public List<Task> tasksInDayByFiltering() {
+        cursor = (cursor + 1) % size;
+        LocalDateTime from = BenchmarkData.START.plusMinutes(15L * cursor);
+        LocalDateTime to = from.plusDays(1);
+        List<Task> result = new ArrayList<>();
+        for (Task task : manager.getPrioritizedTasks()) {
+            if (task.getStartTime() != null && task.getStartTime().isBefore(to) && task.getEndTime().isAfter(from)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Задача длиннее всех промежутков в сетке: индекс промежутков сразу находит место после последней задачи
+    @Benchmark
+    public Task scheduleAfterAll() {
+        cursor = (cursor + 1) % size;
+        Task task = new Task("Scheduled task", "Does not fit between existing tasks");
+        task.setStartTime(BenchmarkData.START.plusMinutes(15L * cursor));
+        task.setDuration(Duration.ofMinutes(20));
+        manager.scheduleNext(task);
+        manager.deleteTask(task.getId());
+        return task;
+    }
+}
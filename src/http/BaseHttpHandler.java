@@ -1,43 +1,457 @@
 package http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import utils.DurationTypeAdapter;
-import utils.LocalDateTimeTypeAdapter;
+import managers.NotFoundException;
+import managers.TaskManager;
+import managers.TimeOverlapException;
+import tasks.Status;
+import tasks.Task;
+import tasks.TaskType;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
-    protected final Gson gson = new GsonBuilder()
-            .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
-            .create();
+    // Сколько байт JSON копится в памяти, прежде чем отправить заголовки и продолжить потоком
+    private static final int MAX_BUFFERED_JSON = 256 * 1024;
+
+    protected final Gson gson = HttpTaskServer.getGson();
+    private int compressionThreshold = ServerConfig.DEFAULT_COMPRESSION_THRESHOLD;
+
+    void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
 
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
-        byte[] responseBytes = text.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
+        // Заголовки уже отправлены (сбой посреди потокового ответа): статусом ошибку не сообщить
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        sendBytes(exchange, text.getBytes(StandardCharsets.UTF_8), statusCode);
+    }
+
+    protected void sendBytes(HttpExchange exchange, byte[] responseBytes, int statusCode) throws IOException {
+        try (OutputStream os = openResponseBody(exchange, statusCode, responseBytes.length)) {
             os.write(responseBytes);
         }
     }
 
+    // Поток тела JSON-ответа (length < 0 - размер заранее неизвестен). Если клиент принимает gzip или deflate
+    // и ответ не меньше порога, тело сжимается по мере записи; неизвестный размер сравнивается с порогом
+    // по первым записанным байтам (CompressingOutputStream)
+    protected OutputStream openResponseBody(HttpExchange exchange, int statusCode, long length) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        String encoding = length < 0 || length >= compressionThreshold
+                ? negotiateEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding")) : null;
+        if (encoding != null) {
+            return new CompressingOutputStream(exchange, statusCode, encoding, length < 0 ? compressionThreshold : 0);
+        }
+        exchange.sendResponseHeaders(statusCode, Math.max(length, 0));
+        return exchange.getResponseBody();
+    }
+
+    // gzip предпочтительнее deflate при равном q; q=0 запрещает кодировку, * подразумевает gzip
+    static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (CompressingOutputStream.GZIP.equals(name) || "x-gzip".equals(name)) {
+                gzip = quality;
+            } else if (CompressingOutputStream.DEFLATE.equals(name)) {
+                deflate = quality;
+            } else if ("*".equals(name)) {
+                any = quality;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return CompressingOutputStream.GZIP;
+        }
+        return deflate > 0 ? CompressingOutputStream.DEFLATE : null;
+    }
+
+    protected void sendJson(HttpExchange exchange, Object body, int statusCode) throws IOException {
+        sendJson(exchange, body, statusCode, gson);
+    }
+
+    // Задачи и списки задач в общем формате собираются из кэшированного JSON (TaskJsonCache).
+    // Остальное сериализуется в JsonBuffer: пока ответ не больше MAX_BUFFERED_JSON, заголовки не отправлены
+    // и ошибка сериализации уходит обычным ответом об ошибке; больший ответ идёт потоком (chunked)
+    protected void sendJson(HttpExchange exchange, Object body, int statusCode, Gson gson) throws IOException {
+        if (gson == this.gson && body instanceof Task) {
+            sendBytes(exchange, TaskJsonCache.toJson((Task) body), statusCode);
+            return;
+        }
+        if (gson == this.gson && isTaskList(body)) {
+            sendTaskList(exchange, (List<?>) body, statusCode);
+            return;
+        }
+        JsonBuffer buffer = new JsonBuffer(exchange, statusCode);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+        try {
+            gson.toJson(body, writer);
+            writer.flush();
+        } catch (RuntimeException | IOException e) {
+            buffer.abort();
+            throw e;
+        }
+        buffer.finish();
+    }
+
+    // Тело ответа: до MAX_BUFFERED_JSON байт в памяти, после - отправка заголовков и дальше прямо в поток ответа
+    private final class JsonBuffer extends OutputStream {
+        private final HttpExchange exchange;
+        private final int statusCode;
+        private byte[] buffer = new byte[8192];
+        private int count;
+        // Поток ответа; null, пока заголовки не отправлены
+        private OutputStream out;
+
+        JsonBuffer(HttpExchange exchange, int statusCode) {
+            this.exchange = exchange;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null && count + len <= MAX_BUFFERED_JSON) {
+                if (count + len > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_BUFFERED_JSON,
+                            Math.max(buffer.length * 2, count + len)));
+                }
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            if (out == null) {
+                out = new BufferedOutputStream(openResponseBody(exchange, statusCode, -1));
+                out.write(buffer, 0, count);
+                buffer = null;
+            }
+            out.write(b, off, len);
+        }
+
+        // До отправки заголовков сбрасывать нечего
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        // Уложившийся в буфер ответ отправляется целиком, с Content-Length
+        void finish() throws IOException {
+            if (out == null) {
+                try (OutputStream os = openResponseBody(exchange, statusCode, count)) {
+                    os.write(buffer, 0, count);
+                }
+            } else {
+                out.close();
+            }
+        }
+
+        // Если заголовки уже ушли, обрезанный JSON не должен выглядеть полным ответом. HttpExchange.close
+        // закрывает соединение, когда закрытие потока ответа завершилось ошибкой, - завершающий chunk
+        // тогда не отправляется, и клиент видит оборванный ответ
+        void abort() {
+            if (out == null) {
+                return;
+            }
+            exchange.setStreams(null, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Ответ прерван");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    throw new IOException("Ответ прерван");
+                }
+            });
+        }
+    }
+
+    private static boolean isTaskList(Object body) {
+        if (!(body instanceof List)) {
+            return false;
+        }
+        for (Object element : (List<?>) body) {
+            if (!(element instanceof Task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Те же байты, что дал бы gson.toJson(list): готовые фрагменты через запятую. Фрагменты берутся по одному
+    // по мере отправки, так что большой список начинает уходить клиенту сразу, а не после обхода всех задач
+    private void sendTaskList(HttpExchange exchange, List<?> tasks, int statusCode) throws IOException {
+        JsonBuffer buffer = new JsonBuffer(exchange, statusCode);
+        try {
+            buffer.write('[');
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i > 0) {
+                    buffer.write(',');
+                }
+                buffer.write(TaskJsonCache.toJson((Task) tasks.get(i)));
+            }
+            buffer.write(']');
+        } catch (RuntimeException | IOException e) {
+            buffer.abort();
+            throw e;
+        }
+        buffer.finish();
+    }
+
+    // ETag строится по номерам изменений коллекций (TaskManager.getChangeCount) и слабый, потому что байты
+    // ответа зависят ещё и от Content-Encoding. Если тег совпал с If-None-Match, отправляется 304 без тела
+    // и возвращается true. Номера читаются до выборки данных: тогда тег может отстать от ответа
+    // (лишний повторный запрос), но не опередить его. Номера изменений свои у каждого менеджера и начинаются
+    // заново при перезапуске, поэтому в тег входит ещё и метка ленты изменений менеджера (ChangeFeed.getEpoch):
+    // тег другого менеджера или выданный до перезапуска не совпадёт с новым
+    protected boolean checkNotModified(HttpExchange exchange, TaskManager taskManager, long... changeCounts)
+            throws IOException {
+        StringBuilder builder = new StringBuilder("W/\"").append(taskManager.getChangeFeed().getEpoch());
+        for (long changeCount : changeCounts) {
+            builder.append('-').append(Long.toString(changeCount, 36));
+        }
+        String etag = builder.append('"').toString();
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (matchesETag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return true;
+        }
+        return false;
+    }
+
+    // If-None-Match сравнивается слабо: W/"x" совпадает с "x", * - с любым тегом
+    private static boolean matchesETag(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        etag = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ответ на изменяющий запрос отправляется только после подтверждения записи
+    protected void awaitCommit(TaskManager taskManager) {
+        taskManager.getCommitFuture().join();
+    }
+
+    // Страница списка; если она заполнена целиком, курсор следующей страницы передаётся в X-Next-Cursor
+    protected void sendPage(HttpExchange exchange, List<? extends Task> page, int limit) throws IOException {
+        sendPage(exchange, page, limit, gson);
+    }
+
+    protected void sendPage(HttpExchange exchange, List<? extends Task> page, int limit, Gson gson)
+            throws IOException {
+        if (page.size() == limit) {
+            exchange.getResponseHeaders().add("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        sendJson(exchange, page, 200, gson);
+    }
+
+    protected Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    protected int parseIntParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное значение параметра " + name + ": " + value);
+        }
+    }
+
+    // /tasks/batch, /epics/batch, /subtasks/batch
+    protected boolean isBatchPath(String[] pathParts) {
+        return pathParts.length == 3 && "batch".equals(pathParts[2]);
+    }
+
+    // POST .../batch: массив без id создаётся, массив с id обновляется - целиком или никак
+    protected <T extends Task> void handleBatchPost(HttpExchange exchange, TaskManager taskManager,
+                                                    Class<T[]> arrayType) throws IOException {
+        try {
+            T[] body = gson.fromJson(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8),
+                    arrayType);
+            List<T> batch = body != null ? Arrays.asList(body) : List.of();
+            int newCount = 0;
+            for (T task : batch) {
+                if (task.getId() == 0) {
+                    newCount++;
+                }
+            }
+            if (newCount == batch.size()) {
+                List<Task> created = taskManager.createAll(batch);
+                awaitCommit(taskManager);
+                sendJson(exchange, created, 201);
+            } else if (newCount == 0) {
+                taskManager.updateAll(batch);
+                awaitCommit(taskManager);
+                sendJson(exchange, batch, 200);
+            } else {
+                sendBadRequest(exchange, "Пакет должен состоять либо только из новых задач, либо только из обновлений");
+            }
+        } catch (JsonSyntaxException e) {
+            sendServerError(exchange, "Invalid JSON format");
+        } catch (NotFoundException e) {
+            sendNotFound(exchange);
+        } catch (TimeOverlapException e) {
+            sendHasInteractions(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+
+    // DELETE .../batch?ids=1,2,3: удаляются все перечисленные задачи типа type или ни одной;
+    // id задачи другого типа (например, эпика в /tasks/batch) считается ненайденным
+    protected void handleBatchDelete(HttpExchange exchange, TaskManager taskManager, TaskType type)
+            throws IOException {
+        try {
+            String value = parseQuery(exchange).get("ids");
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Не указан параметр ids");
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (String id : value.split(",")) {
+                try {
+                    ids.add(Integer.parseInt(id.trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Некорректное значение параметра ids: " + value);
+                }
+            }
+            taskManager.deleteAll(type, ids);
+            awaitCommit(taskManager);
+            sendText(exchange, "Tasks deleted", 200);
+        } catch (NotFoundException e) {
+            sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+
+    // Дата в формате ISO (2030-01-01T10:00), как в теле задач; null - параметр не задан
+    protected LocalDateTime parseDateTimeParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное значение параметра " + name + ": " + value);
+        }
+    }
+
+    // Необязательный фильтр ?status=; null - без фильтра
+    protected Status parseStatusParameter(Map<String, String> parameters) {
+        String value = parameters.get("status");
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Status.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректное значение параметра status: " + value);
+        }
+    }
+
+    // Общее число элементов списка (с учётом фильтра) - без выгрузки всех страниц
+    protected void setTotalCount(HttpExchange exchange, int count) {
+        exchange.getResponseHeaders().set("X-Total-Count", String.valueOf(count));
+    }
+
+    protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
+        sendError(exchange, message, 400);
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
-        sendText(exchange, "{\"error\": \"Resource not found\"}", 404);
+        sendError(exchange, "Resource not found", 404);
     }
 
     protected void sendHasInteractions(HttpExchange exchange) throws IOException {
-        sendText(exchange, "{\"error\": \"Task time conflicts with existing tasks\"}", 406);
+        sendError(exchange, "Task time conflicts with existing tasks", 406);
     }
 
     protected void sendServerError(HttpExchange exchange, String message) throws IOException {
-        sendText(exchange, "{\"error\": \"" + message + "\"}", 500);
+        sendError(exchange, message, 500);
+    }
+
+    // Сообщения повторяют значения из запроса (курсор, limit, status), поэтому строка экранируется Gson:
+    // кавычка или обратная косая черта в запросе не ломают JSON ответа
+    private void sendError(HttpExchange exchange, String message, int statusCode) throws IOException {
+        sendText(exchange, "{\"error\": " + gson.toJson(message) + "}", statusCode);
     }
 }
@@ -0,0 +1,106 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Тело ответа с отложенной отправкой заголовков: первые threshold байт копятся в буфере.
+// Если ответ в них уложился, он уходит несжатым с Content-Length; иначе отправляются заголовки
+// с Content-Encoding, и дальше данные идут через кодировщик прямо в поток ответа (chunked)
+class CompressingOutputStream extends OutputStream {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int ENCODER_BUFFER_SIZE = 8192;
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final String encoding;
+    private byte[] buffer;
+    private int count;
+    // Кодировщик; null, пока заголовки не отправлены
+    private OutputStream out;
+    // Deflater, переданный DeflaterOutputStream явно, тот не освобождает - это делает close
+    private Deflater deflater;
+    private boolean closed;
+
+    CompressingOutputStream(HttpExchange exchange, int statusCode, String encoding, int threshold) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.encoding = encoding;
+        this.buffer = new byte[threshold];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out == null && count < buffer.length) {
+            buffer[count++] = (byte) b;
+            return;
+        }
+        startEncoding();
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out == null && len <= buffer.length - count) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        startEncoding();
+        out.write(b, off, len);
+    }
+
+    // До отправки заголовков сбрасывать нечего: решение о сжатии откладывается до порога или close
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, count > 0 ? count : -1);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(buffer, 0, count);
+        }
+        buffer = null;
+    }
+
+    private void startEncoding() throws IOException {
+        if (out != null) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        exchange.sendResponseHeaders(statusCode, 0);
+        OutputStream body = exchange.getResponseBody();
+        if (GZIP.equals(encoding)) {
+            out = new GZIPOutputStream(body, ENCODER_BUFFER_SIZE);
+        } else {
+            deflater = new Deflater();
+            out = new DeflaterOutputStream(body, deflater, ENCODER_BUFFER_SIZE);
+        }
+        out.write(buffer, 0, count);
+        buffer = null;
+    }
+}
@@ -1,15 +1,19 @@
 package http;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import managers.NotFoundException;
 import managers.TaskManager;
+import tasks.Status;
 import tasks.Epic;
+import tasks.TaskType;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 public class EpicHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -27,8 +31,12 @@ public class EpicHandler extends BaseHttpHandler {
         try {
             if ("GET".equals(method)) {
                 handleGet(exchange, pathParts);
+            } else if ("POST".equals(method) && isBatchPath(pathParts)) {
+                handleBatchPost(exchange, taskManager, Epic[].class);
             } else if ("POST".equals(method)) {
                 handlePost(exchange);
+            } else if ("DELETE".equals(method) && isBatchPath(pathParts)) {
+                handleBatchDelete(exchange, taskManager, TaskType.EPIC);
             } else if ("DELETE".equals(method)) {
                 handleDelete(exchange, pathParts);
             } else {
@@ -44,23 +52,61 @@ public class EpicHandler extends BaseHttpHandler {
     private void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         try {
             if (pathParts.length == 2) { // /epics
-                List<Epic> epics = taskManager.getAllEpics();
-                sendText(exchange, gson.toJson(epics), 200);
+                Map<String, String> query = parseQuery(exchange);
+                Gson epicGson = epicGson(query);
+                Status status = parseStatusParameter(query);
+                if (checkNotModified(exchange, taskManager, taskManager.getChangeCount(TaskType.EPIC))) {
+                    return;
+                }
+                setTotalCount(exchange, status == null ? taskManager.getCount(TaskType.EPIC)
+                        : taskManager.getCount(TaskType.EPIC, status));
+                if (query.containsKey("limit")) {
+                    int limit = parseIntParameter(query, "limit", 0);
+                    int after = parseIntParameter(query, "after", 0);
+                    sendPage(exchange, status == null ? taskManager.getEpics(after, limit)
+                            : taskManager.getEpicsByStatus(status, after, limit), limit, epicGson);
+                } else {
+                    List<Epic> epics = status == null ? taskManager.getAllEpics()
+                            : taskManager.getEpicsByStatus(status);
+                    sendJson(exchange, epics, 200, epicGson);
+                }
         } else if (pathParts.length == 3) { // /epics/{id}
             int epicId = parseId(pathParts[2]);
+                Gson epicGson = epicGson(parseQuery(exchange));
+                long changeCount = taskManager.getChangeCount(TaskType.EPIC);
+                // Просмотр попадает в историю и при ответе 304
                 Epic epic = taskManager.getEpicById(epicId);
-                sendText(exchange, gson.toJson(epic), 200);
+                if (!checkNotModified(exchange, taskManager, changeCount)) {
+                    sendJson(exchange, epic, 200, epicGson);
+                }
             } else if (pathParts.length == 4 && "subtasks".equals(pathParts[3])) { // /epics/{id}/subtasks
                 int epicId = parseId(pathParts[2]);
-                sendText(exchange, gson.toJson(taskManager.getSubtasksByEpic(epicId)), 200);
+                // Эпик считается изменённым при любом изменении своих подзадач
+                if (!checkNotModified(exchange, taskManager, taskManager.getChangeCount(TaskType.EPIC))) {
+                    sendJson(exchange, taskManager.getSubtasksByEpic(epicId), 200);
+                }
         } else {
             exchange.sendResponseHeaders(400, 0);
             }
         } catch (NotFoundException e) {
             sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
         }
     }
 
+    // ?subtasks=ids: вместо вложенных подзадач только их id
+    private Gson epicGson(Map<String, String> query) {
+        String subtasks = query.get("subtasks");
+        if (subtasks == null || "full".equals(subtasks)) {
+            return gson;
+        }
+        if ("ids".equals(subtasks)) {
+            return HttpTaskServer.getGsonWithSubtaskIds();
+        }
+        throw new IllegalArgumentException("Некорректное значение параметра subtasks: " + subtasks);
+    }
+
     private void handlePost(HttpExchange exchange) throws IOException {
         try {
             Epic epic = gson.fromJson(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8),
@@ -68,10 +114,12 @@ public class EpicHandler extends BaseHttpHandler {
 
             if (epic.getId() == 0) {
                 taskManager.createEpic(epic);
-                sendText(exchange, gson.toJson(epic), 201);
+                awaitCommit(taskManager);
+                sendJson(exchange, epic, 201);
             } else {
                 taskManager.updateEpic(epic);
-                sendText(exchange, gson.toJson(epic), 200);
+                awaitCommit(taskManager);
+                sendJson(exchange, epic, 200);
             }
         } catch (JsonSyntaxException e) {
             sendServerError(exchange, "Invalid JSON format");
@@ -82,6 +130,7 @@ public class EpicHandler extends BaseHttpHandler {
         if (pathParts.length == 3) { // /epics/{id}
             int epicId = parseId(pathParts[2]);
             taskManager.deleteEpic(epicId);
+            awaitCommit(taskManager);
             sendText(exchange, "Epic deleted", 200);
         } else {
             exchange.sendResponseHeaders(400, 0);
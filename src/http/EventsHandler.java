@@ -0,0 +1,212 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import managers.ChangeFeed;
+import managers.TaskEvent;
+import managers.TaskManager;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// GET /events: лента изменений в формате server-sent events. Каждое событие несёт id (метка запуска и номер),
+// по которому клиент продолжает после переподключения (заголовок Last-Event-ID или ?after=). Если продолжить
+// нельзя, первым приходит событие reset - клиенту нужно перечитать списки. Подписчик, не успевающий читать,
+// отключается после события overflow; соединение без событий поддерживается комментарием раз в 15 секунд.
+public class EventsHandler extends BaseHttpHandler {
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final TaskManager taskManager;
+    private final int bufferSize;
+    // Место подписчика занимается атомарно до подписки и освобождается после закрытия соединения
+    private final Semaphore slots;
+    private final Set<ChangeFeed.Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public EventsHandler(TaskManager taskManager) {
+        this(taskManager, ServerConfig.DEFAULT_EVENT_BUFFER_SIZE, ServerConfig.DEFAULT_MAX_EVENT_SUBSCRIBERS);
+    }
+
+    public EventsHandler(TaskManager taskManager, int bufferSize, int maxSubscribers) {
+        this.taskManager = taskManager;
+        this.bufferSize = bufferSize;
+        this.slots = new Semaphore(maxSubscribers);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if ("GET".equals(method) && "/events".equals(path)) {
+                handleGet(exchange);
+            } else {
+                exchange.sendResponseHeaders(405, 0);
+            }
+        } catch (Exception e) {
+            sendServerError(exchange, "Internal server error: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Закрывает все подписки: ожидающие потоки обработчика завершают ответы (при остановке сервера)
+    public void closeAll() {
+        for (ChangeFeed.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private void handleGet(HttpExchange exchange) throws IOException {
+        ResumePoint after;
+        try {
+            after = parseResumePoint(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+            return;
+        }
+        // Каждое соединение занимает поток обработки, поэтому число подписчиков ограничено
+        if (!slots.tryAcquire()) {
+            sendText(exchange, "Слишком много подписчиков", 503);
+            return;
+        }
+        try {
+            openStream(exchange, after);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void openStream(HttpExchange exchange, ResumePoint after) throws IOException {
+        ChangeFeed feed = taskManager.getChangeFeed();
+        ChangeFeed.Subscription subscription = after == null ? feed.subscribe(bufferSize)
+                : feed.subscribe(after.epoch, after.sequence, bufferSize);
+        String epoch = feed.getEpoch();
+        subscriptions.add(subscription);
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=utf-8");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody())) {
+            if (after != null && !subscription.isResumed()) {
+                writeEvent(out, eventId(epoch, subscription.getStartSequence()), "reset", "{}");
+                out.flush();
+            }
+            stream(subscription, epoch, out);
+        } catch (IOException e) {
+            // Клиент закрыл соединение
+        } finally {
+            subscription.close();
+            subscriptions.remove(subscription);
+        }
+    }
+
+    private void stream(ChangeFeed.Subscription subscription, String epoch, OutputStream out) throws IOException {
+        try {
+            while (true) {
+                TaskEvent event = subscription.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (event == null) {
+                    if (subscription.isClosed()) {
+                        break;
+                    }
+                    out.write(HEARTBEAT);
+                }
+                // Накопившиеся события уходят одним сбросом буфера
+                while (event != null) {
+                    writeEvent(out, epoch, event);
+                    event = subscription.poll(0, TimeUnit.SECONDS);
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (subscription.isOverflowed()) {
+            writeEvent(out, null, "overflow", "{}");
+        }
+    }
+
+    private void writeEvent(OutputStream out, String epoch, TaskEvent event) throws IOException {
+        String id = eventId(epoch, event.getSequence());
+        String name = event.getAction().name().toLowerCase(Locale.ROOT);
+        StringBuilder data = new StringBuilder(64)
+                .append("{\"type\":\"").append(event.getType().name())
+                .append("\",\"id\":").append(event.getId());
+        if (event.getTask() != null) {
+            data.append(",\"task\":");
+            out.write(header(id, name));
+            out.write(data.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(taskJson(event.getTask()));
+            out.write("}\n\n".getBytes(StandardCharsets.UTF_8));
+        } else {
+            writeEvent(out, id, name, data.append('}').toString());
+        }
+    }
+
+    // Копия эпика в событии не содержит подзадач, поэтому его JSON не совпадает с кэшированным JSON эпика
+    private static byte[] taskJson(Task task) {
+        if (task.getType() == TaskType.EPIC) {
+            return HttpTaskServer.getGsonWithoutSubtasks().toJson(task, Task.class).getBytes(StandardCharsets.UTF_8);
+        }
+        return TaskJsonCache.toJson(task);
+    }
+
+    private static void writeEvent(OutputStream out, String id, String name, String data) throws IOException {
+        out.write(header(id, name));
+        out.write(data.getBytes(StandardCharsets.UTF_8));
+        out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // id события - метка ленты и номер: после перезапуска сервера номера начинаются заново
+    private static String eventId(String epoch, long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // Строки id (если он есть) и event, начало строки data
+    private static byte[] header(String id, String name) {
+        String header = (id != null ? "id: " + id + "\n" : "") + "event: " + name + "\ndata: ";
+        return header.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Последнее полученное событие или null, если клиент подключается впервые. Номер без метки
+    // (или с меткой другого запуска) разбирается, но продолжить с него нельзя - клиент получит reset
+    private ResumePoint parseResumePoint(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (value == null || value.isEmpty()) {
+            value = parseQuery(exchange).get("after");
+        }
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        int separator = trimmed.lastIndexOf('-');
+        try {
+            long sequence = Long.parseLong(trimmed.substring(separator + 1));
+            if (sequence < 0 || separator == 0) {
+                throw new NumberFormatException();
+            }
+            return new ResumePoint(separator > 0 ? trimmed.substring(0, separator) : null, sequence);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный номер события: " + value);
+        }
+    }
+
+    private static final class ResumePoint {
+        final String epoch;
+        final long sequence;
+
+        ResumePoint(String epoch, long sequence) {
+            this.epoch = epoch;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -3,9 +3,11 @@ package http;
 import com.sun.net.httpserver.HttpExchange;
 import managers.TaskManager;
 import tasks.Task;
+import tasks.TaskType;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -33,8 +35,20 @@ public class HistoryHandler extends BaseHttpHandler {
     }
 
     private void handleGet(HttpExchange exchange) throws IOException {
-        List<Task> history = taskManager.getHistory();
-        String response = gson.toJson(history);
-        sendText(exchange, response, 200);
+        try {
+            Map<String, String> query = parseQuery(exchange);
+            // История меняется при просмотрах, а при удалении и изменении задач - вместе с их коллекциями
+            if (checkNotModified(exchange, taskManager, taskManager.getHistoryChangeCount(),
+                    taskManager.getChangeCount(TaskType.TASK), taskManager.getChangeCount(TaskType.EPIC),
+                    taskManager.getChangeCount(TaskType.SUBTASK))) {
+                return;
+            }
+            List<Task> history = query.containsKey("limit")
+                    ? taskManager.getHistory(parseIntParameter(query, "limit", 0))
+                    : taskManager.getHistory();
+            sendJson(exchange, history, 200);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
     }
 }
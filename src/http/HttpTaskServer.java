@@ -1,39 +1,153 @@
 package http;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpServer;
+import managers.ConcurrentTaskManager;
+import managers.SynchronizedTaskManager;
 import managers.TaskManager;
+import utils.DurationTypeAdapter;
+import utils.LocalDateTimeTypeAdapter;
+import utils.TaskTypeAdapterFactory;
+import utils.TaskTypeAdapterFactory.SubtaskFormat;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
+    // Gson потокобезопасен, поэтому один настроенный экземпляр (и его адаптеры) общий для всех обработчиков
+    private static final Gson GSON = createGson(SubtaskFormat.NESTED);
+    private static final Gson GSON_WITH_SUBTASK_IDS = createGson(SubtaskFormat.IDS);
+    private static final Gson GSON_WITHOUT_SUBTASKS = createGson(SubtaskFormat.NONE);
+
     private final HttpServer server;
+    private final ExecutorService executor;
+    private final int port;
+    private final EventsHandler eventsHandler;
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this(taskManager, new ServerConfig());
+    }
+
+    public HttpTaskServer(TaskManager manager, ServerConfig config) throws IOException {
+        // Иначе открытые потоки /events могут занять все потоки обработки и остановить остальные запросы
+        if (config.getMaxEventSubscribers() >= config.getRequestCapacity()) {
+            throw new IllegalArgumentException("Число подписчиков /events должно быть меньше числа одновременно "
+                    + "обрабатываемых запросов (" + config.getRequestCapacity() + ")");
+        }
+        port = config.getPort();
+        server = HttpServer.create(new InetSocketAddress(port), config.getBacklog());
+        executor = createExecutor(config);
+        TaskManager taskManager = threadSafe(manager);
+
+        // Поток-диспетчер ждёт свободного разрешения, поэтому лишние запросы остаются в очереди соединений
+        Semaphore permits = new Semaphore(config.getMaxConcurrentRequests());
+        server.setExecutor(command -> {
+            permits.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        });
+
+        createContext("/tasks", new TaskHandler(taskManager), config);
+        createContext("/subtasks", new SubtaskHandler(taskManager), config);
+        createContext("/epics", new EpicHandler(taskManager), config);
+        createContext("/history", new HistoryHandler(taskManager), config);
+        createContext("/prioritized", new PrioritizedHandler(taskManager), config);
+        createContext("/schedule", new ScheduleHandler(taskManager), config);
+        eventsHandler = new EventsHandler(taskManager, config.getEventBufferSize(), config.getMaxEventSubscribers());
+        server.createContext("/events", eventsHandler);
+    }
 
-        server.createContext("/tasks", new TaskHandler(taskManager));
-        server.createContext("/subtasks", new SubtaskHandler(taskManager));
-        server.createContext("/epics", new EpicHandler(taskManager));
-        server.createContext("/history", new HistoryHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+    private void createContext(String path, BaseHttpHandler handler, ServerConfig config) {
+        handler.setCompressionThreshold(config.getCompressionThreshold());
+        server.createContext(path, handler);
+    }
+
+    // InMemoryTaskManager и FileBackedTaskManager не рассчитаны на параллельные вызовы: обработчики обращаются
+    // к ним через обёртку, которая блокирует только сам вызов менеджера, а не весь запрос
+    private static TaskManager threadSafe(TaskManager manager) {
+        if (manager instanceof ConcurrentTaskManager || manager instanceof SynchronizedTaskManager) {
+            return manager;
+        }
+        return new SynchronizedTaskManager(manager);
+    }
+
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    // Эпики пишутся со списком id подзадач вместо самих подзадач
+    public static Gson getGsonWithSubtaskIds() {
+        return GSON_WITH_SUBTASK_IDS;
+    }
+
+    // Эпики пишутся только со своими полями и агрегатами, без подзадач
+    public static Gson getGsonWithoutSubtasks() {
+        return GSON_WITHOUT_SUBTASKS;
+    }
+
+    private static Gson createGson(SubtaskFormat subtaskFormat) {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new TaskTypeAdapterFactory(subtaskFormat))
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+    }
+
+    private static ExecutorService createExecutor(ServerConfig config) {
+        if (config.getExecutorType() == ServerConfig.ExecutorType.PLATFORM) {
+            return Executors.newFixedThreadPool(config.getPlatformPoolSize());
+        }
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Виртуальные потоки появились в Java 21, на более старых JDK число потоков ограничивает семафор
+            return Executors.newCachedThreadPool();
+        }
     }
 
     public void start() {
         server.start();
-        System.out.println("HTTP сервер запущен на порту " + PORT);
+        System.out.println("HTTP сервер запущен на порту " + port);
     }
 
     public void stop() {
+        // Открытые потоки /events иначе держали бы потоки обработки до таймаута ожидания
+        eventsHandler.closeAll();
         server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         System.out.println("HTTP сервер остановлен.");
     }
 
     public static void main(String[] args) {
         try {
-            TaskManager manager = managers.Managers.getDefault();
-            HttpTaskServer server = new HttpTaskServer(manager);
+            ServerConfig config = ServerConfig.fromSystemProperties();
+            TaskManager manager = managers.Managers.getConcurrent(config.getHistoryCapacity());
+            HttpTaskServer server = new HttpTaskServer(manager, config);
             server.start();
         } catch (IOException e) {
             System.err.println("Ошибка при запуске сервера: " + e.getMessage());
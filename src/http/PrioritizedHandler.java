@@ -1,11 +1,15 @@
 package http;
 
 import com.sun.net.httpserver.HttpExchange;
+import managers.NotFoundException;
 import managers.TaskManager;
 import tasks.Task;
+import tasks.TaskType;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -33,8 +37,29 @@ public class PrioritizedHandler extends BaseHttpHandler {
     }
 
     private void handleGet(HttpExchange exchange) throws IOException {
-        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-        String response = gson.toJson(prioritizedTasks);
-        sendText(exchange, response, 200);
+        try {
+            Map<String, String> query = parseQuery(exchange);
+            // В списке только задачи и подзадачи
+            if (checkNotModified(exchange, taskManager, taskManager.getChangeCount(TaskType.TASK),
+                    taskManager.getChangeCount(TaskType.SUBTASK))) {
+                return;
+            }
+            if (query.containsKey("from") || query.containsKey("to")) {
+                LocalDateTime from = parseDateTimeParameter(query, "from");
+                LocalDateTime to = parseDateTimeParameter(query, "to");
+                sendJson(exchange, taskManager.getTasksBetween(from, to), 200);
+            } else if (query.containsKey("limit")) {
+                int limit = parseIntParameter(query, "limit", 0);
+                int after = parseIntParameter(query, "after", 0);
+                sendPage(exchange, taskManager.getPrioritizedTasks(after, limit), limit);
+            } else {
+                List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+                sendJson(exchange, prioritizedTasks, 200);
+            }
+        } catch (NotFoundException e) {
+            sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
     }
 }
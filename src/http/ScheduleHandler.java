@@ -0,0 +1,85 @@
+package http;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import managers.NotFoundException;
+import managers.TaskManager;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TimeSlot;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// GET /schedule?duration=30&from=...&to=... - свободные промежутки для задачи длительностью duration минут;
+// POST /schedule - создаёт задачу (или подзадачу, если в теле есть epicId) в самом раннем свободном промежутке
+public class ScheduleHandler extends BaseHttpHandler {
+    private final TaskManager taskManager;
+
+    public ScheduleHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if (!"/schedule".equals(path)) {
+                sendNotFound(exchange);
+            } else if ("GET".equals(method)) {
+                handleGet(exchange);
+            } else if ("POST".equals(method)) {
+                handlePost(exchange);
+            } else {
+                exchange.sendResponseHeaders(405, 0);
+            }
+        } catch (Exception e) {
+            sendServerError(exchange, "Internal server error: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGet(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> query = parseQuery(exchange);
+            Duration duration = Duration.ofMinutes(parseIntParameter(query, "duration", 0));
+            LocalDateTime from = parseDateTimeParameter(query, "from");
+            LocalDateTime to = parseDateTimeParameter(query, "to");
+            List<TimeSlot> slots = taskManager.findFreeSlots(duration, from, to);
+            sendJson(exchange, slots, 200);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+
+    private void handlePost(HttpExchange exchange) throws IOException {
+        try {
+            JsonObject body = JsonParser.parseReader(new InputStreamReader(exchange.getRequestBody(),
+                    StandardCharsets.UTF_8)).getAsJsonObject();
+            Task task = body.has("epicId") ? gson.fromJson(body, Subtask.class) : gson.fromJson(body, Task.class);
+            if (task.getId() != 0) {
+                sendBadRequest(exchange, "Планировать можно только новую задачу");
+                return;
+            }
+            Task scheduled = taskManager.scheduleNext(task);
+            awaitCommit(taskManager);
+            sendJson(exchange, scheduled, 201);
+        } catch (JsonParseException | IllegalStateException e) {
+            sendServerError(exchange, "Invalid JSON format");
+        } catch (NotFoundException e) {
+            sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package http;
+
+// Настройки HttpTaskServer: порт, очередь входящих соединений и модель потоков обработки запросов
+public class ServerConfig {
+    public enum ExecutorType {
+        // Виртуальный поток на каждый запрос (Java 21+, на более старых JDK - пул платформенных потоков)
+        VIRTUAL,
+        // Пул платформенных потоков фиксированного размера
+        PLATFORM
+    }
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_BACKLOG = 128;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 256;
+    public static final int DEFAULT_HISTORY_CAPACITY = 10_000;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_EVENT_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_MAX_EVENT_SUBSCRIBERS = 64;
+
+    private int port = DEFAULT_PORT;
+    private int backlog = DEFAULT_BACKLOG;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private ExecutorType executorType = ExecutorType.VIRTUAL;
+    private int platformPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+    private int historyCapacity = DEFAULT_HISTORY_CAPACITY;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private int eventBufferSize = DEFAULT_EVENT_BUFFER_SIZE;
+    // -1 - не задано явно, лимит выводится из числа потоков обработки
+    private int maxEventSubscribers = -1;
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public ExecutorType getExecutorType() {
+        return executorType;
+    }
+
+    public int getPlatformPoolSize() {
+        return platformPoolSize;
+    }
+
+    public int getHistoryCapacity() {
+        return historyCapacity;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    // По умолчанию потокам /events достаётся не больше четверти одновременно обрабатываемых запросов
+    public int getMaxEventSubscribers() {
+        if (maxEventSubscribers >= 0) {
+            return maxEventSubscribers;
+        }
+        return Math.min(DEFAULT_MAX_EVENT_SUBSCRIBERS, getRequestCapacity() / 4);
+    }
+
+    // Сколько запросов может обрабатываться одновременно: у PLATFORM ещё и не больше размера пула
+    public int getRequestCapacity() {
+        if (executorType == ExecutorType.PLATFORM) {
+            return Math.min(maxConcurrentRequests, platformPoolSize);
+        }
+        return maxConcurrentRequests;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Число одновременных запросов должно быть положительным");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setExecutorType(ExecutorType executorType) {
+        this.executorType = executorType;
+    }
+
+    public void setPlatformPoolSize(int platformPoolSize) {
+        if (platformPoolSize <= 0) {
+            throw new IllegalArgumentException("Размер пула потоков должен быть положительным");
+        }
+        this.platformPoolSize = platformPoolSize;
+    }
+
+    // Сколько последних просмотров хранит менеджер, создаваемый в HttpTaskServer.main
+    public void setHistoryCapacity(int historyCapacity) {
+        if (historyCapacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        this.historyCapacity = historyCapacity;
+    }
+
+    // Ответы от этого размера (в байтах) сжимаются, если клиент принимает gzip или deflate;
+    // 0 - сжимать всё, Integer.MAX_VALUE - не сжимать
+    public void setCompressionThreshold(int compressionThreshold) {
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("Порог сжатия не может быть отрицательным");
+        }
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    // Сколько недоставленных событий /events копится для одного подписчика, прежде чем он будет отключён
+    public void setEventBufferSize(int eventBufferSize) {
+        if (eventBufferSize <= 0) {
+            throw new IllegalArgumentException("Размер буфера подписчика должен быть положительным");
+        }
+        this.eventBufferSize = eventBufferSize;
+    }
+
+    // Каждый подписчик /events занимает поток обработки и разрешение на всё время соединения, поэтому
+    // HttpTaskServer требует, чтобы лимит был строго меньше getRequestCapacity()
+    public void setMaxEventSubscribers(int maxEventSubscribers) {
+        if (maxEventSubscribers < 0) {
+            throw new IllegalArgumentException("Число подписчиков не может быть отрицательным");
+        }
+        this.maxEventSubscribers = maxEventSubscribers;
+    }
+
+    // Значения можно переопределить системными свойствами kanban.port, kanban.backlog,
+    // kanban.maxConcurrentRequests, kanban.executor (VIRTUAL/PLATFORM), kanban.poolSize, kanban.historyCapacity
+    // kanban.compressionThreshold, kanban.eventBufferSize и kanban.maxEventSubscribers
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setPort(Integer.getInteger("kanban.port", DEFAULT_PORT));
+        config.setBacklog(Integer.getInteger("kanban.backlog", DEFAULT_BACKLOG));
+        config.setMaxConcurrentRequests(Integer.getInteger("kanban.maxConcurrentRequests",
+                DEFAULT_MAX_CONCURRENT_REQUESTS));
+        config.setExecutorType(ExecutorType.valueOf(System.getProperty("kanban.executor",
+                ExecutorType.VIRTUAL.name())));
+        config.setPlatformPoolSize(Integer.getInteger("kanban.poolSize", config.getPlatformPoolSize()));
+        config.setHistoryCapacity(Integer.getInteger("kanban.historyCapacity", DEFAULT_HISTORY_CAPACITY));
+        config.setCompressionThreshold(Integer.getInteger("kanban.compressionThreshold",
+                DEFAULT_COMPRESSION_THRESHOLD));
+        config.setEventBufferSize(Integer.getInteger("kanban.eventBufferSize", DEFAULT_EVENT_BUFFER_SIZE));
+        Integer maxEventSubscribers = Integer.getInteger("kanban.maxEventSubscribers");
+        if (maxEventSubscribers != null) {
+            config.setMaxEventSubscribers(maxEventSubscribers);
+        }
+        return config;
+    }
+}
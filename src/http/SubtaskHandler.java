@@ -4,12 +4,15 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import managers.NotFoundException;
 import managers.TaskManager;
+import tasks.Status;
 import tasks.Subtask;
+import tasks.TaskType;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 public class SubtaskHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -27,8 +30,12 @@ public class SubtaskHandler extends BaseHttpHandler {
         try {
             if ("GET".equals(method)) {
                 handleGet(exchange, pathParts);
+            } else if ("POST".equals(method) && isBatchPath(pathParts)) {
+                handleBatchPost(exchange, taskManager, Subtask[].class);
             } else if ("POST".equals(method)) {
                 handlePost(exchange);
+            } else if ("DELETE".equals(method) && isBatchPath(pathParts)) {
+                handleBatchDelete(exchange, taskManager, TaskType.SUBTASK);
             } else if ("DELETE".equals(method)) {
                 handleDelete(exchange, pathParts);
             } else {
@@ -44,17 +51,38 @@ public class SubtaskHandler extends BaseHttpHandler {
     private void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         try {
             if (pathParts.length == 2) { // /subtasks
-                List<Subtask> subtasks = taskManager.getAllSubtasks();
-                sendText(exchange, gson.toJson(subtasks), 200);
+                Map<String, String> query = parseQuery(exchange);
+                Status status = parseStatusParameter(query);
+                if (checkNotModified(exchange, taskManager, taskManager.getChangeCount(TaskType.SUBTASK))) {
+                    return;
+                }
+                setTotalCount(exchange, status == null ? taskManager.getCount(TaskType.SUBTASK)
+                        : taskManager.getCount(TaskType.SUBTASK, status));
+                if (query.containsKey("limit")) {
+                    int limit = parseIntParameter(query, "limit", 0);
+                    int after = parseIntParameter(query, "after", 0);
+                    sendPage(exchange, status == null ? taskManager.getSubtasks(after, limit)
+                            : taskManager.getSubtasksByStatus(status, after, limit), limit);
+                } else {
+                    List<Subtask> subtasks = status == null ? taskManager.getAllSubtasks()
+                            : taskManager.getSubtasksByStatus(status);
+                    sendJson(exchange, subtasks, 200);
+                }
             } else if (pathParts.length == 3) { // /subtasks/{id}
                 int subtaskId = parseId(pathParts[2]);
+                long changeCount = taskManager.getChangeCount(TaskType.SUBTASK);
+                // Просмотр попадает в историю и при ответе 304
                 Subtask subtask = taskManager.getSubtaskById(subtaskId);
-                sendText(exchange, gson.toJson(subtask), 200);
+                if (!checkNotModified(exchange, taskManager, changeCount)) {
+                    sendJson(exchange, subtask, 200);
+                }
             } else {
                 exchange.sendResponseHeaders(400, 0);
             }
         } catch (NotFoundException e) {
             sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
         }
     }
 
@@ -68,11 +96,13 @@ public class SubtaskHandler extends BaseHttpHandler {
 
             if (subtask.getId() == 0) {
                 taskManager.createSubtask(subtask);
-                sendText(exchange, gson.toJson(subtask), 201);
+                awaitCommit(taskManager);
+                sendJson(exchange, subtask, 201);
                 System.out.println("Подзадача успешно создана");
             } else {
                 taskManager.updateSubtask(subtask);
-                sendText(exchange, gson.toJson(subtask), 201);
+                awaitCommit(taskManager);
+                sendJson(exchange, subtask, 201);
                 System.out.println("Подзадача успешно обновлена");
             }
         } catch (JsonSyntaxException e) {
@@ -92,6 +122,7 @@ public class SubtaskHandler extends BaseHttpHandler {
         if (pathParts.length == 3) { // /subtasks/{id}
             int subtaskId = parseId(pathParts[2]);
             taskManager.deleteSubtask(subtaskId);
+            awaitCommit(taskManager);
             sendText(exchange, "Subtask deleted", 200);
         } else {
             exchange.sendResponseHeaders(400, 0);
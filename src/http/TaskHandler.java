@@ -4,12 +4,15 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import managers.NotFoundException;
 import managers.TaskManager;
+import tasks.Status;
 import tasks.Task;
+import tasks.TaskType;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 public class TaskHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -27,8 +30,12 @@ public class TaskHandler extends BaseHttpHandler {
         try {
             if ("GET".equals(method)) {
                 handleGet(exchange, pathParts);
+            } else if ("POST".equals(method) && isBatchPath(pathParts)) {
+                handleBatchPost(exchange, taskManager, Task[].class);
             } else if ("POST".equals(method)) {
                 handlePost(exchange);
+            } else if ("DELETE".equals(method) && isBatchPath(pathParts)) {
+                handleBatchDelete(exchange, taskManager, TaskType.TASK);
             } else if ("DELETE".equals(method)) {
                 handleDelete(exchange, pathParts);
             } else {
@@ -44,17 +51,38 @@ public class TaskHandler extends BaseHttpHandler {
     private void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         try {
             if (pathParts.length == 2) { // /tasks
-                List<Task> tasks = taskManager.getAllTasks();
-                sendText(exchange, gson.toJson(tasks), 200);
+                Map<String, String> query = parseQuery(exchange);
+                Status status = parseStatusParameter(query);
+                if (checkNotModified(exchange, taskManager, taskManager.getChangeCount(TaskType.TASK))) {
+                    return;
+                }
+                setTotalCount(exchange, status == null ? taskManager.getCount(TaskType.TASK)
+                        : taskManager.getCount(TaskType.TASK, status));
+                if (query.containsKey("limit")) {
+                    int limit = parseIntParameter(query, "limit", 0);
+                    int after = parseIntParameter(query, "after", 0);
+                    sendPage(exchange, status == null ? taskManager.getTasks(after, limit)
+                            : taskManager.getTasksByStatus(status, after, limit), limit);
+                } else {
+                    List<Task> tasks = status == null ? taskManager.getAllTasks()
+                            : taskManager.getTasksByStatus(status);
+                    sendJson(exchange, tasks, 200);
+                }
             } else if (pathParts.length == 3) { // /tasks/{id}
                 int taskId = parseId(pathParts[2]);
+                long changeCount = taskManager.getChangeCount(TaskType.TASK);
+                // Просмотр попадает в историю и при ответе 304
                 Task task = taskManager.getTaskById(taskId);
-                sendText(exchange, gson.toJson(task), 200);
+                if (!checkNotModified(exchange, taskManager, changeCount)) {
+                    sendJson(exchange, task, 200);
+                }
             } else {
                 exchange.sendResponseHeaders(400, 0);
             }
         } catch (NotFoundException e) {
             sendNotFound(exchange);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, e.getMessage());
         }
     }
 
@@ -65,10 +93,12 @@ public class TaskHandler extends BaseHttpHandler {
 
             if (task.getId() == 0) {
                 taskManager.createTask(task);
-                sendText(exchange, gson.toJson(task), 201);
+                awaitCommit(taskManager);
+                sendJson(exchange, task, 201);
             } else {
                 taskManager.updateTask(task);
-                sendText(exchange, gson.toJson(task), 201);
+                awaitCommit(taskManager);
+                sendJson(exchange, task, 201);
             }
         } catch (JsonSyntaxException e) {
             sendServerError(exchange, "Invalid JSON format");
@@ -80,10 +110,12 @@ public class TaskHandler extends BaseHttpHandler {
     private void handleDelete(HttpExchange exchange, String[] pathParts) throws IOException {
         if (pathParts.length == 2) { // /tasks
             taskManager.deleteAllTasks();
+            awaitCommit(taskManager);
             sendText(exchange, "All tasks deleted", 200);
         } else if (pathParts.length == 3) { // /tasks/{id}
             int taskId = parseId(pathParts[2]);
             taskManager.deleteTask(taskId);
+            awaitCommit(taskManager);
             sendText(exchange, "Task deleted", 200);
         } else {
             exchange.sendResponseHeaders(400, 0);
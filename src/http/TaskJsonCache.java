@@ -0,0 +1,22 @@
+package http;
+
+import tasks.Task;
+
+import java.nio.charset.StandardCharsets;
+
+// JSON задачи для ответов обработчиков: задача сериализуется общим Gson только после изменения,
+// остальные запросы берут готовые байты
+public final class TaskJsonCache {
+    private TaskJsonCache() {
+    }
+
+    public static byte[] toJson(Task task) {
+        byte[] json = task.getCachedJson();
+        if (json == null) {
+            long version = task.getVersion();
+            json = HttpTaskServer.getGson().toJson(task, Task.class).getBytes(StandardCharsets.UTF_8);
+            task.setCachedJson(json, version);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,286 @@
+package managers;
+
+import tasks.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Компактный двоичный снимок: таблица строк и записи фиксированной длины, время - в минутах от эпохи.
+// Фиксированная длина записей позволяет разбирать разделы параллельно прямо из отображённого в память файла.
+//
+// Формат: MAGIC, число строк, число задач, эпиков и подзадач;
+// смещения строк (count + 1) и их байты в UTF-8; затем записи задач, эпиков и подзадач.
+// Запись: id, индекс названия, индекс описания, статус, длительность в минутах, начало в минутах
+// (Task.NO_TIME - без времени) и у подзадач - id эпика.
+// В KBN2 смещения строк 8-байтовые, в прежнем KBN1 - 4-байтовые (такие снимки по-прежнему читаются):
+// таблица строк и сам файл могут быть больше 2 ГБ.
+class BinarySnapshot {
+    private static final int MAGIC = 0x4B424E32; // "KBN2"
+    private static final int MAGIC_V1 = 0x4B424E31; // "KBN1"
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int RECORD_SIZE = 3 * Integer.BYTES + 1 + 2 * Long.BYTES;
+    private static final int SUBTASK_RECORD_SIZE = RECORD_SIZE + Integer.BYTES;
+    private static final int NO_STRING = -1;
+    private static final int CHUNK_SIZE = 16_384;
+    // Один вызов FileChannel.map ограничен 2 ГБ, поэтому файл отображается частями
+    private static final long REGION_SIZE = 1L << 30;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    static boolean isBinary(File file) {
+        if (file.length() < Integer.BYTES) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            int magic = in.readInt();
+            return magic == MAGIC || magic == MAGIC_V1;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении снимка", e);
+        }
+    }
+
+    static void write(OutputStream output, Collection<Task> tasks, Collection<Epic> epics,
+                      Collection<Subtask> subtasks) throws IOException {
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        collectStrings(tasks, stringIndexes, strings);
+        collectStrings(epics, stringIndexes, strings);
+        collectStrings(subtasks, stringIndexes, strings);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(strings.size());
+        out.writeInt(tasks.size());
+        out.writeInt(epics.size());
+        out.writeInt(subtasks.size());
+
+        long offset = 0;
+        out.writeLong(offset);
+        for (byte[] string : strings) {
+            offset += string.length;
+            out.writeLong(offset);
+        }
+        for (byte[] string : strings) {
+            out.write(string);
+        }
+
+        for (Task task : tasks) {
+            writeRecord(out, task, stringIndexes);
+        }
+        for (Epic epic : epics) {
+            writeRecord(out, epic, stringIndexes);
+        }
+        for (Subtask subtask : subtasks) {
+            writeRecord(out, subtask, stringIndexes);
+            out.writeInt(subtask.getEpicId());
+        }
+        out.flush();
+    }
+
+    // Разбирает снимок параллельно и передаёт задачи в sink в порядке: задачи, эпики, подзадачи
+    static void read(File file, Consumer<Task> sink) {
+        read(file, sink, REGION_SIZE);
+    }
+
+    static void read(File file, Consumer<Task> sink, long regionSize) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedFile buffer = new MappedFile(channel, regionSize);
+            int magic = buffer.getInt(0);
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                throw new ManagerSaveException("Файл не является двоичным снимком: " + file, null);
+            }
+            int offsetSize = magic == MAGIC ? Long.BYTES : Integer.BYTES;
+            int stringCount = buffer.getInt(Integer.BYTES);
+            int taskCount = buffer.getInt(2 * Integer.BYTES);
+            int epicCount = buffer.getInt(3 * Integer.BYTES);
+            int subtaskCount = buffer.getInt(4 * Integer.BYTES);
+
+            long offsetsStart = HEADER_SIZE;
+            long stringsStart = offsetsStart + (stringCount + 1L) * offsetSize;
+            String[] strings = readStrings(buffer, stringCount, offsetsStart, offsetSize, stringsStart);
+
+            long tasksStart = stringsStart + buffer.getOffset(offsetsStart, offsetSize, stringCount);
+            long epicsStart = tasksStart + (long) taskCount * RECORD_SIZE;
+            long subtasksStart = epicsStart + (long) epicCount * RECORD_SIZE;
+
+            Task[] tasks = new Task[taskCount];
+            Task[] epics = new Task[epicCount];
+            Task[] subtasks = new Task[subtaskCount];
+            inParallel(taskCount, (from, to) -> readRecords(buffer, tasksStart, RECORD_SIZE, TaskType.TASK,
+                    strings, tasks, from, to));
+            inParallel(epicCount, (from, to) -> readRecords(buffer, epicsStart, RECORD_SIZE, TaskType.EPIC,
+                    strings, epics, from, to));
+            inParallel(subtaskCount, (from, to) -> readRecords(buffer, subtasksStart, SUBTASK_RECORD_SIZE,
+                    TaskType.SUBTASK, strings, subtasks, from, to));
+
+            for (Task task : tasks) {
+                sink.accept(task);
+            }
+            for (Task epic : epics) {
+                sink.accept(epic);
+            }
+            for (Task subtask : subtasks) {
+                sink.accept(subtask);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке из файла", e);
+        }
+    }
+
+    // Файл, отображённый в память частями по regionSize байт. Соседние части перекрываются на Long.BYTES,
+    // поэтому число, начавшееся в части, читается из неё целиком; строки копируются по кускам
+    private static final class MappedFile {
+        private final MappedByteBuffer[] regions;
+        private final long regionSize;
+
+        MappedFile(FileChannel channel, long regionSize) throws IOException {
+            long size = channel.size();
+            this.regionSize = regionSize;
+            this.regions = new MappedByteBuffer[(int) Math.max(1, (size + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = i * regionSize;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(size - start, regionSize + Long.BYTES));
+            }
+        }
+
+        int getInt(long position) {
+            return regions[(int) (position / regionSize)].getInt((int) (position % regionSize));
+        }
+
+        long getLong(long position) {
+            return regions[(int) (position / regionSize)].getLong((int) (position % regionSize));
+        }
+
+        byte get(long position) {
+            return regions[(int) (position / regionSize)].get((int) (position % regionSize));
+        }
+
+        long getOffset(long offsetsStart, int offsetSize, int index) {
+            long position = offsetsStart + (long) index * offsetSize;
+            return offsetSize == Long.BYTES ? getLong(position) : getInt(position);
+        }
+
+        // Отдельные копии частей для потока: у них своя позиция, общие буферы не трогаются
+        ByteBuffer[] views() {
+            ByteBuffer[] views = new ByteBuffer[regions.length];
+            for (int i = 0; i < regions.length; i++) {
+                views[i] = regions[i].duplicate();
+            }
+            return views;
+        }
+
+        void get(ByteBuffer[] views, long position, byte[] target, int length) {
+            int copied = 0;
+            while (copied < length) {
+                int region = (int) (position / regionSize);
+                int offset = (int) (position % regionSize);
+                int count = (int) Math.min(length - copied, regionSize - offset);
+                ByteBuffer view = views[region];
+                view.position(offset);
+                view.get(target, copied, count);
+                copied += count;
+                position += count;
+            }
+        }
+    }
+
+    private interface ChunkReader {
+        void read(int from, int to);
+    }
+
+    private static void inParallel(int count, ChunkReader reader) {
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> reader.read(chunk * CHUNK_SIZE, Math.min(count, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    private static String[] readStrings(MappedFile buffer, int count, long offsetsStart, int offsetSize,
+                                        long stringsStart) {
+        String[] strings = new String[count];
+        inParallel(count, (from, to) -> {
+            ByteBuffer[] views = buffer.views();
+            byte[] bytes = new byte[64];
+            long start = buffer.getOffset(offsetsStart, offsetSize, from);
+            for (int i = from; i < to; i++) {
+                long end = buffer.getOffset(offsetsStart, offsetSize, i + 1);
+                int length = (int) (end - start);
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get(views, stringsStart + start, bytes, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                start = end;
+            }
+        });
+        return strings;
+    }
+
+    // Задачи собираются конструктором со всеми полями: сеттеры брали бы новую версию из общего счётчика,
+    // а за него потоки разбора конкурировали бы на каждой записи
+    private static void readRecords(MappedFile buffer, long sectionStart, int recordSize, TaskType type,
+                                    String[] strings, Task[] target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long position = sectionStart + (long) i * recordSize;
+            int id = buffer.getInt(position);
+            String title = string(strings, buffer.getInt(position + Integer.BYTES));
+            String description = string(strings, buffer.getInt(position + 2 * Integer.BYTES));
+            byte statusOrdinal = buffer.get(position + 3 * Integer.BYTES);
+            Status status = statusOrdinal >= 0 ? STATUSES[statusOrdinal] : null;
+            long durationMinutes = buffer.getLong(position + 3 * Integer.BYTES + 1);
+            long startMinute = buffer.getLong(position + 3 * Integer.BYTES + 1 + Long.BYTES);
+
+            switch (type) {
+                case EPIC:
+                    target[i] = new Epic(id, title, description, status, durationMinutes, startMinute);
+                    break;
+                case SUBTASK:
+                    target[i] = new Subtask(id, title, description, status, durationMinutes, startMinute,
+                            buffer.getInt(position + RECORD_SIZE));
+                    break;
+                default:
+                    target[i] = new Task(id, title, description, status, durationMinutes, startMinute);
+                    break;
+            }
+        }
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static void collectStrings(Collection<? extends Task> tasks, Map<String, Integer> indexes,
+                                       List<byte[]> strings) {
+        for (Task task : tasks) {
+            addString(task.getTitle(), indexes, strings);
+            addString(task.getDescription(), indexes, strings);
+        }
+    }
+
+    private static void addString(String value, Map<String, Integer> indexes, List<byte[]> strings) {
+        if (value != null && !indexes.containsKey(value)) {
+            indexes.put(value, strings.size());
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Task task, Map<String, Integer> stringIndexes)
+            throws IOException {
+        out.writeInt(task.getId());
+        out.writeInt(task.getTitle() != null ? stringIndexes.get(task.getTitle()) : NO_STRING);
+        out.writeInt(task.getDescription() != null ? stringIndexes.get(task.getDescription()) : NO_STRING);
+        out.writeByte(task.getStatus() != null ? task.getStatus().ordinal() : -1);
+        out.writeLong(task.getDurationMinutes());
+        out.writeLong(task.getStartMinute());
+    }
+}
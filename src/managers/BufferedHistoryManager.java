@@ -0,0 +1,125 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// История для многопоточного менеджера: просмотр не берёт общую блокировку, а получает порядковый номер
+// и кладётся в свою ячейку кольцевого буфера. Накопленные просмотры переносятся в основную историю
+// пакетами под отдельной блокировкой строго по номерам, поэтому порядок совпадает с порядком просмотров.
+// Буфер ограничен: если он заполнен, просматривающий поток сам разбирает очередь.
+public class BufferedHistoryManager implements HistoryManager {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+
+    // Каждый DRAIN_INTERVAL-й просмотр пробует разобрать буфер, если блокировка свободна
+    private static final int DRAIN_INTERVAL = 64;
+
+    private final HistoryManager delegate;
+    private final AtomicReferenceArray<Task> buffer;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // Номер следующего просмотра для переноса в историю (меняется под drainLock)
+    private volatile long nextSequence;
+
+    public BufferedHistoryManager(HistoryManager delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedHistoryManager(HistoryManager delegate, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Размер буфера должен быть положительным");
+        }
+        this.delegate = delegate;
+        int size = Integer.highestOneBit(Math.min(bufferSize, 1 << 30) * 2 - 1);
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        long number = sequence.getAndIncrement();
+        while (number - nextSequence > mask) {
+            // Буфер заполнен: помогаем разобрать его вместо того, чтобы перезаписать чужой просмотр.
+            // Ждать блокировку нельзя: её держатель может сам ждать просмотров с меньшими номерами
+            if (drainLock.tryLock()) {
+                try {
+                    drain(false);
+                } finally {
+                    drainLock.unlock();
+                }
+            }
+            Thread.yield();
+        }
+        buffer.lazySet((int) (number & mask), task);
+        if ((number & (DRAIN_INTERVAL - 1)) == DRAIN_INTERVAL - 1 && drainLock.tryLock()) {
+            try {
+                drain(false);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drain(true);
+            delegate.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain(true);
+            return delegate.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        drainLock.lock();
+        try {
+            drain(true);
+            return delegate.getHistory(limit);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Переносит просмотры по порядку, пока не встретится ещё не записанная ячейка.
+    // complete - дождаться всех просмотров, номера которых уже выданы: поток мог получить номер,
+    // но ещё не записать просмотр в буфер
+    private void drain(boolean complete) {
+        long target = complete ? sequence.get() : 0;
+        long next = nextSequence;
+        while (true) {
+            int index = (int) (next & mask);
+            Task task = buffer.get(index);
+            if (task != null) {
+                buffer.lazySet(index, null);
+                delegate.add(task);
+                next++;
+                nextSequence = next;
+            } else if (next < target) {
+                Thread.yield();
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Лента изменений менеджера. Последние capacity событий хранятся в кольце, чтобы подписчик мог
+// продолжить с известного номера; у каждого подписчика своя ограниченная очередь. Публикация
+// никогда не ждёт подписчика: если его очередь переполнена, он отключается и должен переподключиться.
+public class ChangeFeed {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // Маркер в очереди подписчика: будит ожидающий поток после отключения
+    private static final Object TERMINATED = new Object();
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    // Номера событий начинаются с 1 в каждой ленте, поэтому продолжить можно только номер из той же ленты
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36) + "."
+            + Integer.toString(INSTANCES.incrementAndGet(), 36);
+    private final TaskEvent[] recent;
+    private long nextSequence = 1;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер ленты изменений должен быть положительным");
+        }
+        recent = new TaskEvent[capacity];
+    }
+
+    synchronized void publish(TaskEvent.Action action, Task task) {
+        TaskEvent event = new TaskEvent(nextSequence++, action, task);
+        recent[(int) (event.getSequence() % recent.length)] = event;
+        for (int i = subscriptions.size() - 1; i >= 0; i--) {
+            Subscription subscription = subscriptions.get(i);
+            if (!subscription.queue.offer(event)) {
+                subscriptions.remove(i);
+                subscription.terminate(true);
+            }
+        }
+    }
+
+    // Метка этой ленты (запуска); номер события имеет смысл только вместе с ней
+    public String getEpoch() {
+        return epoch;
+    }
+
+    // Номер последнего опубликованного события (0, если событий не было)
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    // Подписка на события, опубликованные после этого вызова
+    public synchronized Subscription subscribe(int bufferSize) {
+        return subscribe(epoch, nextSequence - 1, bufferSize);
+    }
+
+    // Подписка на события ленты epoch с номером больше afterSequence. Если метка другая (клиент пришёл
+    // из прошлого запуска), номер больше последнего или часть событий уже вытеснена из кольца,
+    // подписка начинается с текущего момента и isResumed() = false
+    public synchronized Subscription subscribe(String epoch, long afterSequence, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Размер буфера подписчика должен быть положительным");
+        }
+        long last = nextSequence - 1;
+        long oldest = Math.max(1, nextSequence - recent.length);
+        boolean resumed = this.epoch.equals(epoch) && afterSequence >= oldest - 1 && afterSequence <= last;
+        Subscription subscription = new Subscription(bufferSize, resumed, last);
+        if (resumed) {
+            for (long sequence = afterSequence + 1; sequence <= last; sequence++) {
+                subscription.replay.add(recent[(int) (sequence % recent.length)]);
+            }
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final BlockingQueue<Object> queue;
+        // Пропущенные события, известные на момент подписки; ограничены размером кольца
+        private final ArrayDeque<TaskEvent> replay = new ArrayDeque<>();
+        private final boolean resumed;
+        private final long startSequence;
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        private Subscription(int bufferSize, boolean resumed, long startSequence) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.resumed = resumed;
+            this.startSequence = startSequence;
+        }
+
+        public boolean isResumed() {
+            return resumed;
+        }
+
+        // Номер последнего события на момент подписки: без возобновления подписка получает события после него
+        public long getStartSequence() {
+            return startSequence;
+        }
+
+        // Подписчик не успевал забирать события и был отключён
+        public boolean isOverflowed() {
+            return overflowed;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        // Следующее событие; null, если за timeout событий не было или подписка закрыта
+        public TaskEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            if (!replay.isEmpty()) {
+                return replay.poll();
+            }
+            if (closed) {
+                return null;
+            }
+            Object next = queue.poll(timeout, unit);
+            return next instanceof TaskEvent ? (TaskEvent) next : null;
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this);
+            terminate(false);
+        }
+
+        // Вызывается после исключения из списка подписчиков, поэтому новых событий в очереди уже не будет
+        private void terminate(boolean overflow) {
+            if (overflow) {
+                overflowed = true;
+            }
+            closed = true;
+            queue.clear();
+            queue.offer(TERMINATED);
+        }
+    }
+}
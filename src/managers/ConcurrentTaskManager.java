@@ -0,0 +1,279 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+import tasks.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Потокобезопасный менеджер для многопоточного HTTP-сервера: чтения выполняются параллельно
+// под общей блокировкой, изменения - под эксклюзивной. Писатели сознательно не разделены по эпикам:
+// проверка пересечений по времени должна видеть все задачи сразу, и любое изменение, даже внутри одного
+// эпика, трогает общие структуры - выдачу id, индексы id, статусов, приоритета и интервалов, счётчики
+// изменений для ETag и номер события в ленте. Отдельные блокировки пришлось бы брать вместе почти
+// на каждой записи, а порядок событий в ленте перестал бы совпадать с порядком изменений.
+// Сама запись под блокировкой - это обновление индексов за O(log N).
+// Наружу отдаются копии задач, снятые под блокировкой: обработчики сериализуют их уже после её снятия,
+// когда оригиналы могут меняться писателями. Копия - это поля задачи и ссылка на её кэш JSON, поэтому
+// повторной сериализации нет; эпик копируется вместе с подзадачами, т.к. они входят в его JSON
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // Просмотры из параллельных getXxxById записываются в историю через буфер, без общей блокировки
+    public ConcurrentTaskManager() {
+        this(new BufferedHistoryManager(new InMemoryHistoryManager()));
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    private <T> T read(Supplier<T> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T copy(T task) {
+        return task == null ? null : (T) task.copy();
+    }
+
+    private static <T extends Task> List<T> copyAll(List<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add(copy(task));
+        }
+        return copies;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> super.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> super.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> super.createSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(() -> copyAll(super.getAllTasks()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> copyAll(super.getAllEpics()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(() -> copyAll(super.getAllSubtasks()));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        return read(() -> copyAll(super.getSubtasksByEpic(epicId)));
+    }
+
+    @Override
+    public void deleteTask(int taskId) {
+        write(() -> super.deleteTask(taskId));
+    }
+
+    @Override
+    public void deleteSubtask(int subtaskId) {
+        write(() -> super.deleteSubtask(subtaskId));
+    }
+
+    @Override
+    public void deleteEpic(int epicId) {
+        write(() -> super.deleteEpic(epicId));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(super::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(super::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(super::deleteAllSubtasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> copy(super.getTaskById(id)));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return read(() -> copy(super.getEpicById(id)));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> copy(super.getSubtaskById(id)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> copyAll(super.getHistory()));
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return read(() -> copyAll(super.getHistory(limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(() -> copyAll(super.getPrioritizedTasks()));
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return read(() -> copyAll(super.getTasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return read(() -> copyAll(super.getEpics(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return read(() -> copyAll(super.getSubtasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        return read(() -> copyAll(super.getPrioritizedTasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> copyAll(super.getTasksBetween(from, to)));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findFreeSlots(duration, from, to));
+    }
+
+    // Поиск места и создание - под одной блокировкой, чтобы найденный промежуток не заняли между ними
+    @Override
+    public Task scheduleNext(Task task) {
+        return write(() -> super.scheduleNext(task));
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> batch) {
+        return write(() -> super.createAll(batch));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        write(() -> super.updateAll(batch));
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        write(() -> super.deleteAll(ids));
+    }
+
+    // Проверка типов и удаление - под одной блокировкой
+    @Override
+    public void deleteAll(TaskType type, Collection<Integer> ids) {
+        write(() -> super.deleteAll(type, ids));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, int afterId, int limit) {
+        return read(() -> copyAll(super.getTasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status, int afterId, int limit) {
+        return read(() -> copyAll(super.getEpicsByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status, int afterId, int limit) {
+        return read(() -> copyAll(super.getSubtasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public int getCount(TaskType type) {
+        return read(() -> super.getCount(type));
+    }
+
+    @Override
+    public int getCount(TaskType type, Status status) {
+        return read(() -> super.getCount(type, status));
+    }
+
+    @Override
+    public long getChangeCount(TaskType type) {
+        return read(() -> super.getChangeCount(type));
+    }
+}
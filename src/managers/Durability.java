@@ -0,0 +1,13 @@
+package managers;
+
+// Режим сохранения журнала FileBackedTaskManager
+public enum Durability {
+    // Каждая операция записывается и сбрасывается на диск (fsync) до возврата из метода
+    SYNC,
+    // Запись сбрасывается фоновым потоком сразу, а операции, пришедшие во время этого сброса, уходят
+    // следующим одним fsync; изменение считается подтверждённым, когда завершён getCommitFuture()
+    GROUP_COMMIT,
+    // Фоновый сброс раз в окно ожидания: изменения подтверждаются сразу,
+    // при сбое теряются не более чем изменения за последнее окно
+    ASYNC
+}
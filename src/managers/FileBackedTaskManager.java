@@ -3,152 +3,547 @@ import tasks.*;
 import utils.TaskConverter;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final long DEFAULT_ASYNC_FLUSH_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final File file;
+    private final TaskJournal journal;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    // Подтверждение последнего изменения своё у каждого потока: запрос, дождавшийся своей записи,
+    // не зависит от того, какие изменения успели сделать другие потоки
+    private final ThreadLocal<CompletableFuture<Void>> commitFuture =
+            ThreadLocal.withInitial(() -> CompletableFuture.completedFuture(null));
+    private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    // Файлы уже отражают состояние менеджера: он загружен из них или уже записал в них изменения
+    private boolean filesInitialized;
 
     public FileBackedTaskManager(File file) {
+        this(file, (TaskJournal) null);
+    }
+
+    // В режиме журнала каждая операция дописывает одну запись в <file>.journal,
+    // а полный снимок перезаписывается только при сжатии журнала.
+    // Новый менеджер пуст, но существующие снимок и журнал при создании не трогает: как и без журнала,
+    // файлы заменяются его состоянием при первом изменении (загрузить их - loadFromFile)
+    public FileBackedTaskManager(File file, boolean journaled) {
+        this(file, journaled ? Durability.SYNC : null);
+    }
+
+    public FileBackedTaskManager(File file, Durability durability) {
+        this(file, createJournal(file, durability));
+    }
+
+    // maxDelayMillis и maxBatchSize - интервал и размер пакета фонового сброса в режиме ASYNC
+    public FileBackedTaskManager(File file, Durability durability, long maxDelayMillis, int maxBatchSize) {
+        this(file, new TaskJournal(journalFile(file), durability, maxDelayMillis, maxBatchSize));
+    }
+
+    private FileBackedTaskManager(File file, TaskJournal journal) {
         this.file = file;
+        this.journal = journal;
+    }
+
+    public void setCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сжатия журнала должен быть положительным");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    // Формат, в котором будут записываться следующие снимки
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
     }
 
-    private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
-            writer.write("id,type,name,status,description,duration,startTime,epic\n");
+    public Durability getDurability() {
+        return journal != null ? journal.getDurability() : Durability.SYNC;
+    }
+
+    // В режиме ASYNC изменения подтверждаются сразу, дождаться записи на диск можно через flush()
+    @Override
+    public CompletableFuture<Void> getCommitFuture() {
+        if (journal != null && journal.getDurability() == Durability.ASYNC) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return commitFuture.get();
+    }
+
+    // Число сбросов журнала на диск (fsync) с момента создания менеджера
+    public long getJournalSyncCount() {
+        return journal != null ? journal.getSyncCount() : 0;
+    }
+
+    // Немедленно сбрасывает накопленные записи журнала на диск
+    public CompletableFuture<Void> flush() {
+        return journal != null ? journal.flush() : CompletableFuture.completedFuture(null);
+    }
+
+    // Записывает снимок и очищает журнал
+    public void compact() {
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        // Снимок сбрасывается на диск до очистки журнала, иначе сбой между ними потеряет данные
+        save(true);
+        journal.truncate();
+        filesInitialized = true;
+    }
+
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private static TaskJournal createJournal(File file, Durability durability) {
+        if (durability == null) {
+            return null;
+        }
+        return new TaskJournal(journalFile(file), durability, DEFAULT_ASYNC_FLUSH_INTERVAL_MILLIS,
+                DEFAULT_MAX_BATCH_SIZE);
+    }
 
-            for (Task task : getAllTasks()) {
-                writer.write(TaskConverter.toString(task) + "\n");
-              }
-            for (Epic epic : getAllEpics()) {
-                writer.write(TaskConverter.toString(epic) + "\n");
+    private static File journalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    private void save(boolean sync) {
+        save(sync, tasks.values(), epics.values(), subtasks.values());
+    }
+
+    private void save(boolean sync, Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile, false)) {
+            if (snapshotFormat == SnapshotFormat.BINARY) {
+                BinarySnapshot.write(out, tasks, epics, subtasks);
+            } else {
+                writeCsv(out, tasks, epics, subtasks);
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(TaskConverter.toString(subtask) + "\n");
+            if (sync) {
+                out.getFD().sync();
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка при сохранении в файл", e);
         }
+        replaceFile(tempFile.toPath(), file.toPath());
+    }
+
+    private static void writeCsv(OutputStream out, Collection<Task> tasks, Collection<Epic> epics,
+                                 Collection<Subtask> subtasks) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        StringBuilder buffer = new StringBuilder(CSV_BUFFER_SIZE + 256);
+        buffer.append("id,type,name,status,description,duration,startTime,epic\n");
+
+        for (Task task : tasks) {
+            appendCsvLine(task, buffer, writer);
+        }
+        for (Epic epic : epics) {
+            appendCsvLine(epic, buffer, writer);
+        }
+        for (Subtask subtask : subtasks) {
+            appendCsvLine(subtask, buffer, writer);
+        }
+        writer.write(buffer.toString());
+        writer.flush();
+    }
+
+    // Строки копятся в общем буфере и уходят в writer крупными порциями
+    private static void appendCsvLine(Task task, StringBuilder buffer, Writer writer) throws IOException {
+        TaskConverter.appendTo(task, buffer);
+        buffer.append('\n');
+        if (buffer.length() >= CSV_BUFFER_SIZE) {
+            writer.write(buffer.toString());
+            buffer.setLength(0);
+        }
+    }
+
+    // Выгружает текущее состояние в CSV независимо от формата снимка
+    public void exportToCsv(File target) {
+        try (FileOutputStream out = new FileOutputStream(target, false)) {
+            writeCsv(out, tasks.values(), epics.values(), subtasks.values());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при экспорте в CSV", e);
+        }
+    }
+
+    private static void replaceFile(Path source, Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении в файл", e);
+        }
+    }
+
+    private void savePut(Task task) {
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        commitFuture.set(initializedJournal().appendPut(task));
+        compactIfNeeded();
+    }
+
+    private void saveDelete(int id) {
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        commitFuture.set(initializedJournal().appendDelete(id));
+        compactIfNeeded();
+    }
+
+    private void savePuts(List<? extends Task> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        commitFuture.set(initializedJournal().appendPuts(batch));
+        compactIfNeeded();
+    }
+
+    private void saveDeletes(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        commitFuture.set(initializedJournal().appendDeletes(ids));
+        compactIfNeeded();
+    }
+
+    private void saveClear(TaskType type) {
+        if (journal == null) {
+            save(false);
+            return;
+        }
+        commitFuture.set(initializedJournal().appendClear(type));
+        compactIfNeeded();
+    }
+
+    // Перед первой записью в журнал файлы приводятся к состоянию, с которым менеджер создан (пустому):
+    // снимок и журнал прежнего запуска иначе смешались бы с его изменениями при следующей загрузке
+    private TaskJournal initializedJournal() {
+        if (!filesInitialized) {
+            save(true, List.of(), List.of(), List.of());
+            journal.truncate();
+            filesInitialized = true;
+        }
+        return journal;
+    }
+
+    private void compactIfNeeded() {
+        if (journal.size() >= compactionThreshold) {
+            compact();
+        }
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, false);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled) {
+        return loadFromFile(file, journaled ? Durability.SYNC : null);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, Durability durability) {
+        TaskJournal journal = createJournal(file, durability);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, journal);
+        manager.filesInitialized = true;
         try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.size() <= 1) return manager;
-
-            int maxId = 0;
-
-            for (int i = 1; i < lines.size(); i++) {
-                Task task = TaskConverter.fromString(lines.get(i));
-
-                switch (task.getType()) {
-                    case TASK:
-                        manager.tasks.put(task.getId(), task);
-                        manager.prioritizedTasks.add(task);
-                        break;
-                    case EPIC:
-                        Epic epic = (Epic) task;
-                        manager.epics.put(epic.getId(), epic);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) task;
-                        manager.subtasks.put(subtask.getId(), subtask);
-                        Epic parentEpic = manager.epics.get(subtask.getEpicId());
-                        if (parentEpic != null) {
-                            parentEpic.addSubtask(subtask);
+            if (BinarySnapshot.isBinary(file)) {
+                manager.snapshotFormat = SnapshotFormat.BINARY;
+                BinarySnapshot.read(file, manager::restore);
+            } else if (journal == null || file.exists()) {
+                readCsv(file, manager::restore);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке из файла", e);
+        }
+
+        if (journal != null) {
+            journal.replay(new TaskJournal.Sink() {
+                @Override
+                public void put(Task task) {
+                    manager.restore(task);
+                }
+
+                @Override
+                public void delete(int id) {
+                    manager.tasks.remove(id);
+                    manager.epics.remove(id);
+                    manager.subtasks.remove(id);
+                }
+
+                @Override
+                public void clear(TaskType type) {
+                    manager.clearRestored(type);
+                }
+            });
+        }
+
+        manager.rebuildIndexes();
+        return manager;
+    }
+
+    // Начало массива символов как CharSequence: в отличие от CharBuffer, charAt без учёта позиции и лимита
+    private static final class CharArray implements CharSequence {
+        private final char[] chars;
+        private final int length;
+
+        CharArray(char[] chars, int length) {
+            this.chars = chars;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    // Файл читается кусками в переиспользуемый буфер, записи разбираются прямо в нём:
+    // ни строки, ни массива байт на весь файл. Первая запись - заголовок
+    private static void readCsv(File file, Consumer<Task> sink) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[CSV_BUFFER_SIZE];
+            int length = 0;
+            boolean header = true;
+            while (true) {
+                int read = reader.read(buffer, length, buffer.length - length);
+                boolean eof = read < 0;
+                if (!eof) {
+                    length += read;
+                }
+                CharArray content = new CharArray(buffer, length);
+                int start = 0;
+                while (start < length) {
+                    int end = TaskConverter.recordEnd(content, start);
+                    if (end < 0) {
+                        if (!eof) {
+                            break;
                         }
-                        manager.prioritizedTasks.add(subtask);
-                        break;
+                        end = length;
+                    }
+                    if (header) {
+                        header = false;
+                    } else if (end > start) {
+                        sink.accept(TaskConverter.fromString(content, start, end));
+                    }
+                    start = end + 1;
+                }
+                if (eof) {
+                    return;
+                }
+                // Незаконченная запись переносится в начало; если она заняла весь буфер, он растёт
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
                 }
-                maxId = Math.max(maxId, task.getId());
             }
+        }
+    }
 
-            manager.currentId = maxId + 1;
+    private void restore(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                break;
+            case EPIC:
+                epics.put(task.getId(), (Epic) task);
+                break;
+            case SUBTASK:
+                subtasks.put(task.getId(), (Subtask) task);
+                break;
+        }
+        currentId = Math.max(currentId, task.getId() + 1);
+    }
+
+    private void clearRestored(TaskType type) {
+        switch (type) {
+            case TASK:
+                tasks.clear();
+                break;
+            case EPIC:
+                epics.clear();
+                subtasks.clear();
+                break;
+            case SUBTASK:
+                subtasks.clear();
+                break;
+        }
+    }
 
-            for (Epic epic : manager.getAllEpics()) {
-                epic.updateStatus();
-                epic.updateTimeAndDuration();
+    // Связывает подзадачи с эпиками и заполняет приоритетный список после загрузки
+    private void rebuildIndexes() {
+        IntMap<List<Subtask>> subtasksByEpic = new IntMap<>();
+        Iterator<Subtask> iterator = subtasks.values().iterator();
+        while (iterator.hasNext()) {
+            Subtask subtask = iterator.next();
+            if (!epics.containsKey(subtask.getEpicId())) {
+                // Эпик удалён - подзадачи удаляются вместе с ним
+                iterator.remove();
+                continue;
             }
+            groupByEpic(subtasksByEpic, subtask);
+        }
+        rebuildPrioritized();
 
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при загрузке из файла", e);
+        // Статус и время каждого эпика считаются один раз, по всем его подзадачам сразу (и у эпика без подзадач)
+        for (Epic epic : epics.values()) {
+            List<Subtask> epicSubtasks = subtasksByEpic.get(epic.getId());
+            epic.addSubtasks(epicSubtasks != null ? epicSubtasks : List.of());
         }
-        return manager;
+
+        rebuildIdIndexes();
     }
 
     @Override
     public Task createTask(Task task) {
         Task newTask = super.createTask(task);
-        save();
+        savePut(newTask);
         return newTask;
     }
 
     @Override
     public Epic createEpic(Epic epic) {
         Epic newEpic = super.createEpic(epic);
-        save();
+        savePut(newEpic);
         return newEpic;
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
         Subtask newSubtask = super.createSubtask(subtask);
-        save();
+        savePut(newSubtask);
         return newSubtask;
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        if (tasks.get(task.getId()) == task) {
+            savePut(task);
+        }
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        if (epics.get(epic.getId()) == epic) {
+            savePut(epic);
+        }
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        if (subtasks.get(subtask.getId()) == subtask) {
+            savePut(subtask);
+        }
     }
 
     @Override
     public void deleteTask(int taskId) {
         super.deleteTask(taskId);
-        save();
+        saveDelete(taskId);
     }
 
     @Override
     public void deleteEpic(int epicId) {
         super.deleteEpic(epicId);
-        save();
+        saveDelete(epicId);
     }
 
     @Override
     public void deleteSubtask(int subtaskId) {
         super.deleteSubtask(subtaskId);
-        save();
+        saveDelete(subtaskId);
     }
 
     @Override
     public void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        saveClear(TaskType.TASK);
     }
 
     @Override
     public void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        saveClear(TaskType.EPIC);
     }
 
     @Override
     public void deleteAllSubtasks() {
         super.deleteAllSubtasks();
-        save();
+        saveClear(TaskType.SUBTASK);
+    }
+
+    // Пакет сохраняется одной записью в журнал (или одним снимком), а не отдельно по каждой задаче
+    @Override
+    public List<Task> createAll(List<? extends Task> batch) {
+        List<Task> created = super.createAll(batch);
+        savePuts(created);
+        return created;
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        super.updateAll(batch);
+        savePuts(batch);
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        super.deleteAll(ids);
+        saveDeletes(ids);
     }
 }
@@ -0,0 +1,220 @@
+package managers;
+
+// Свободные промежутки [start, end) между занятыми интервалами, упорядоченные по началу.
+// Декартово дерево (treap), в каждом узле хранится наибольшая длина промежутка в поддереве,
+// поэтому самый ранний промежуток нужной длины находится за O(log N) без обхода всех задач.
+class GapIndex {
+    static final class Gap {
+        final long start;
+        long end;
+        private final int priority;
+        private long maxLength;
+        private Gap left;
+        private Gap right;
+
+        private Gap(long start, long end) {
+            this.start = start;
+            this.end = end;
+            // Приоритет - перемешанное начало: дерево сбалансировано в среднем и не зависит от Random
+            long h = start * 0x9E3779B97F4A7C15L;
+            this.priority = (int) (h ^ (h >>> 32));
+            this.maxLength = end - start;
+        }
+    }
+
+    private Gap root;
+    // Результат split: части дерева с началом < key и >= key
+    private Gap splitLeft;
+    private Gap splitRight;
+
+    void add(long start, long end) {
+        if (start < end) {
+            root = insert(root, new Gap(start, end));
+        }
+    }
+
+    // Удаляет промежуток, начинающийся в start, если он есть
+    void remove(long start) {
+        root = delete(root, start);
+    }
+
+    // Меняет конец промежутка, начинающегося в start (или удаляет его, если он стал пустым),
+    // без перестройки дерева: пересчитывается только maxLength на пути к узлу
+    void resize(long start, long end) {
+        if (start >= end) {
+            remove(start);
+        } else {
+            resize(root, start, end);
+        }
+    }
+
+    private static boolean resize(Gap node, long start, long end) {
+        if (node == null) {
+            return false;
+        }
+        boolean found;
+        if (node.start == start) {
+            node.end = end;
+            found = true;
+        } else {
+            found = resize(start < node.start ? node.left : node.right, start, end);
+        }
+        if (found) {
+            update(node);
+        }
+        return found;
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    // Заменяет содержимое промежутками [starts[i], ends[i]), упорядоченными по началу и непустыми.
+    // Дерево строится за O(N) по правому краю: узел с большим приоритетом забирает снятую с края
+    // часть левым поддеревом, поэтому порядок по приоритетам тот же, что и после вставок по одному
+    void rebuild(long[] starts, long[] ends, int count) {
+        Gap[] rightEdge = new Gap[count];
+        int depth = 0;
+        for (int i = 0; i < count; i++) {
+            Gap gap = new Gap(starts[i], ends[i]);
+            Gap last = null;
+            while (depth > 0 && rightEdge[depth - 1].priority < gap.priority) {
+                last = rightEdge[--depth];
+                update(last);
+            }
+            gap.left = last;
+            if (depth > 0) {
+                rightEdge[depth - 1].right = gap;
+            }
+            rightEdge[depth++] = gap;
+        }
+        root = depth > 0 ? rightEdge[0] : null;
+        while (depth > 0) {
+            update(rightEdge[--depth]);
+        }
+    }
+
+    // Самый ранний промежуток, в который помещается интервал длины length, начинающийся не раньше from
+    Gap firstFit(long from, long length) {
+        Gap containing = floor(from);
+        if (containing != null && containing.end - from >= length) {
+            return containing;
+        }
+        return firstFitAfter(root, from, length);
+    }
+
+    private Gap floor(long position) {
+        Gap result = null;
+        Gap node = root;
+        while (node != null) {
+            if (node.start <= position) {
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    // Левый промежуток с началом больше from и длиной не меньше length; в поддеревьях,
+    // целиком лежащих правее from, спуск идёт по maxLength без возвратов
+    private static Gap firstFitAfter(Gap node, long from, long length) {
+        if (node == null || node.maxLength < length) {
+            return null;
+        }
+        if (node.start <= from) {
+            return firstFitAfter(node.right, from, length);
+        }
+        Gap found = firstFitAfter(node.left, from, length);
+        if (found != null) {
+            return found;
+        }
+        if (node.end - node.start >= length) {
+            return node;
+        }
+        return firstFitAfter(node.right, from, length);
+    }
+
+    private Gap insert(Gap node, Gap gap) {
+        if (node == null) {
+            return gap;
+        }
+        if (gap.priority > node.priority) {
+            split(node, gap.start);
+            gap.left = splitLeft;
+            gap.right = splitRight;
+            update(gap);
+            return gap;
+        }
+        if (gap.start < node.start) {
+            node.left = insert(node.left, gap);
+        } else {
+            node.right = insert(node.right, gap);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Gap delete(Gap node, long start) {
+        if (node == null) {
+            return null;
+        }
+        if (node.start == start) {
+            return merge(node.left, node.right);
+        }
+        if (start < node.start) {
+            node.left = delete(node.left, start);
+        } else {
+            node.right = delete(node.right, start);
+        }
+        update(node);
+        return node;
+    }
+
+    private void split(Gap node, long key) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        if (node.start < key) {
+            split(node.right, key);
+            node.right = splitLeft;
+            splitLeft = node;
+        } else {
+            split(node.left, key);
+            node.left = splitRight;
+            splitRight = node;
+        }
+        update(node);
+    }
+
+    private static Gap merge(Gap left, Gap right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Gap node) {
+        long maxLength = node.end - node.start;
+        if (node.left != null) {
+            maxLength = Math.max(maxLength, node.left.maxLength);
+        }
+        if (node.right != null) {
+            maxLength = Math.max(maxLength, node.right.maxLength);
+        }
+        node.maxLength = maxLength;
+    }
+}
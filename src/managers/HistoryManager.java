@@ -10,4 +10,7 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Не более limit последних просмотров в том же порядке, что и getHistory()
+    List<Task> getHistory(int limit);
 }
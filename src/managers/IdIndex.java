@@ -0,0 +1,89 @@
+package managers;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Отсортированный массив идентификаторов для постраничной выдачи за O(log N + размер страницы).
+// Идентификаторы выдаются по возрастанию, поэтому добавление - это дозапись в конец,
+// а удалённые позиции помечаются и вычищаются, когда их становится больше половины.
+class IdIndex {
+    private int[] ids = new int[16];
+    private int size;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    void add(int id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return;
+        }
+        compact();
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0 || removed.get(position)) {
+            return;
+        }
+        removed.set(position);
+        removedCount++;
+        if (removedCount > size / 2) {
+            compact();
+        }
+    }
+
+    int size() {
+        return size - removedCount;
+    }
+
+    void clear() {
+        ids = new int[16];
+        size = 0;
+        removed.clear();
+        removedCount = 0;
+    }
+
+    // Не более limit идентификаторов, строго больших afterId, по возрастанию
+    int[] idsAfter(int afterId, int limit) {
+        int position = Arrays.binarySearch(ids, 0, size, afterId);
+        position = position >= 0 ? position + 1 : -position - 1;
+
+        int[] page = new int[Math.min(limit, size - removedCount)];
+        int count = 0;
+        while (count < page.length && (position = removed.nextClearBit(position)) < size) {
+            page[count++] = ids[position++];
+        }
+        return count == page.length ? page : Arrays.copyOf(page, count);
+    }
+
+    private void compact() {
+        if (removedCount == 0) {
+            return;
+        }
+        int target = 0;
+        for (int position = 0; position < size; position++) {
+            if (!removed.get(position)) {
+                ids[target++] = ids[position];
+            }
+        }
+        size = target;
+        removed.clear();
+        removedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(capacity, ids.length * 2));
+        }
+    }
+}
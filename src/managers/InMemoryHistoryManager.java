@@ -3,7 +3,7 @@ package managers;
 import tasks.Task;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 
 public class InMemoryHistoryManager implements HistoryManager {
@@ -19,34 +19,55 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
     private Node head;
     private Node tail;
-    private final HashMap<Integer, Node> nodeMap = new HashMap<>();
+    private final IntMap<Node> nodeMap = new IntMap<>();
+    private final int capacity;
+
+    public InMemoryHistoryManager() {
+        this(UNLIMITED);
+    }
+
+    // При заполнении вытесняется задача, которую дольше всех не просматривали
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        this.capacity = capacity;
+    }
 
+    public int getCapacity() {
+        return capacity;
+    }
 
-    private void linkLast(Task task) {
-        Node newNode = new Node(task, null, tail);
+    private void linkLast(Node node) {
+        node.prev = tail;
+        node.next = null;
 
         if (tail == null) {
-            head = newNode;
+            head = node;
         } else {
-            tail.next = newNode;
+            tail.next = node;
         }
 
-        tail = newNode;
-        nodeMap.put(task.getId(), newNode);
+        tail = node;
     }
 
-    private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
-        Node current = head;
+    private List<Task> getTasks(int limit) {
+        int size = Math.min(limit, nodeMap.size());
+        Task[] tasks = new Task[size];
+        Node current = tail;
 
-        while (current != null) {
-            tasks.add(current.task);
-            current = current.next;
+        // Последние size просмотров, от более раннего к более позднему
+        for (int i = size - 1; i >= 0; i--) {
+            tasks[i] = current.task;
+            current = current.prev;
         }
 
-        return tasks;
+        // Изменяемая копия, как у остальных списков менеджера
+        return new ArrayList<>(Arrays.asList(tasks));
     }
 
     private void removeNode(Node node) {
@@ -66,27 +87,47 @@ public class InMemoryHistoryManager implements HistoryManager {
             node.prev.next = node.next;
             node.next.prev = node.prev;
         }
-
-        nodeMap.remove(node.task.getId());
     }
 
+    // Методы синхронизированы, чтобы историю можно было разделять между потоками;
+    // ConcurrentTaskManager снимает эту блокировку с пути чтения через BufferedHistoryManager
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task == null) {
             return;
         }
-        removeNode(nodeMap.get(task.getId()));
-        linkLast(task);
+        // Повторный просмотр и вытеснение переиспользуют узлы, поэтому при заполненной истории память не растёт
+        Node node = nodeMap.get(task.getId());
+        if (node == null && nodeMap.size() >= capacity) {
+            node = head;
+            nodeMap.remove(node.task.getId());
+        }
+        if (node == null) {
+            node = new Node(task, null, null);
+        } else {
+            removeNode(node);
+            node.task = task;
+        }
+        linkLast(node);
+        nodeMap.put(task.getId(), node);
     }
 
     @Override
-    public void remove(int id) {
-        Node node = nodeMap.get(id);
+    public synchronized void remove(int id) {
+        Node node = nodeMap.remove(id);
         removeNode(node);
     }
 
     @Override
-    public List<Task> getHistory() {
-        return getTasks();
+    public synchronized List<Task> getHistory() {
+        return getTasks(nodeMap.size());
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число записей истории должно быть положительным");
+        }
+        return getTasks(limit);
     }
 }
@@ -1,35 +1,53 @@
 package managers;
 
 import tasks.Epic;
+import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
+import tasks.TimeSlot;
 
-import java.util.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int currentId = 1;
-    protected HashMap<Integer, Task> tasks = new HashMap<>();
-    protected HashMap<Integer, Epic> epics = new HashMap<>();
-    protected HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    protected HistoryManager historyManager = new InMemoryHistoryManager();
-    protected final TreeSet<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
-    );
+    protected IntMap<Task> tasks = new IntMap<>();
+    protected IntMap<Epic> epics = new IntMap<>();
+    protected IntMap<Subtask> subtasks = new IntMap<>();
+    protected HistoryManager historyManager;
+    private final PrioritizedIndex prioritizedTasks = new PrioritizedIndex();
+    private final TimeSlotIndex timeSlots = new TimeSlotIndex();
+    private final IdIndex taskIds = new IdIndex();
+    private final IdIndex epicIds = new IdIndex();
+    private final IdIndex subtaskIds = new IdIndex();
+    private final StatusIndex taskStatuses = new StatusIndex();
+    private final StatusIndex epicStatuses = new StatusIndex();
+    private final StatusIndex subtaskStatuses = new StatusIndex();
+    // Просмотры идут под блокировкой чтения ConcurrentTaskManager, поэтому счётчик - LongAdder
+    private final LongAdder views = new LongAdder();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+
+    public InMemoryTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
 
     public Task createTask(Task task) {
         if (!isTimeSlotAvailable(task)) {
-            throw new IllegalArgumentException("Ошибка: нельзя добавлять пересекающиеся задачи.");
+            throw new TimeOverlapException("Ошибка: нельзя добавлять пересекающиеся задачи.");
         }
-        task.setId(currentId++);
-        tasks.put(task.getId(), task);
-        prioritizedTasks.add(task);
+        insertTask(task);
         return task;
     }
 
     public Epic createEpic(Epic epic) {
-        epic.setId(currentId++);
-        epics.put(epic.getId(), epic);
+        insertEpic(epic);
         return epic;
     }
 
@@ -39,16 +57,42 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Эпик с id " + subtask.getEpicId() + " не найден");
         }
         if (!isTimeSlotAvailable(subtask)) {
-            throw new IllegalArgumentException("Ошибка: нельзя добавлять пересекающиеся подзадачи.");
+            throw new TimeOverlapException("Ошибка: нельзя добавлять пересекающиеся подзадачи.");
         }
-        subtask.setId(currentId++);
-        subtasks.put(subtask.getId(), subtask);
+        insertSubtask(subtask);
         epic.addSubtask(subtask);
-        epic.updateStatus();
-        prioritizedTasks.add(subtask);
+        epicStatuses.update(epic);
+        changeFeed.publish(TaskEvent.Action.UPDATED, epic);
         return subtask;
     }
 
+    private void insertTask(Task task) {
+        task.setId(currentId++);
+        tasks.put(task.getId(), task);
+        taskIds.add(task.getId());
+        taskStatuses.update(task);
+        addPrioritized(task);
+        changeFeed.publish(TaskEvent.Action.CREATED, task);
+    }
+
+    private void insertEpic(Epic epic) {
+        epic.setId(currentId++);
+        epics.put(epic.getId(), epic);
+        epicIds.add(epic.getId());
+        epicStatuses.update(epic);
+        changeFeed.publish(TaskEvent.Action.CREATED, epic);
+    }
+
+    // Связь с эпиком добавляет вызывающий: по одной подзадаче или пакетом
+    private void insertSubtask(Subtask subtask) {
+        subtask.setId(currentId++);
+        subtasks.put(subtask.getId(), subtask);
+        subtaskIds.add(subtask.getId());
+        subtaskStatuses.update(subtask);
+        addPrioritized(subtask);
+        changeFeed.publish(TaskEvent.Action.CREATED, subtask);
+    }
+
     public List<Task> getAllTasks() {
         return new ArrayList<>(tasks.values());
     }
@@ -63,11 +107,15 @@ public class InMemoryTaskManager implements TaskManager {
 
     public void updateTask(Task task) {
         if (tasks.containsKey(task.getId())) {
-            prioritizedTasks.remove(tasks.get(task.getId()));
+            Task oldTask = tasks.get(task.getId());
+            removePrioritized(oldTask);
             if (isTimeSlotAvailable(task)) {
                 tasks.put(task.getId(), task);
-                prioritizedTasks.add(task);
+                taskStatuses.update(task);
+                addPrioritized(task);
+                changeFeed.publish(TaskEvent.Action.UPDATED, task);
             } else {
+                addPrioritized(oldTask);
                 System.out.println("Ошибка: новая версия задачи пересекается по времени.");
             }
         } else {
@@ -79,6 +127,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (epics.containsKey(epic.getId())) {
             epics.put(epic.getId(), epic);
             epic.updateStatus();
+            epicStatuses.update(epic);
+            changeFeed.publish(TaskEvent.Action.UPDATED, epic);
         } else {
             System.out.println("Эпик с id " + epic.getId() + " не существует");
         }
@@ -86,16 +136,21 @@ public class InMemoryTaskManager implements TaskManager {
 
     public void updateSubtask(Subtask subtask) {
         if (subtasks.containsKey(subtask.getId())) {
-            prioritizedTasks.remove(subtasks.get(subtask.getId()));
+            Subtask oldSubtask = subtasks.get(subtask.getId());
+            removePrioritized(oldSubtask);
             if (isTimeSlotAvailable(subtask)) {
                 subtasks.put(subtask.getId(), subtask);
+                subtaskStatuses.update(subtask);
+                changeFeed.publish(TaskEvent.Action.UPDATED, subtask);
                 Epic epic = epics.get(subtask.getEpicId());
                 if (epic != null) {
-                    epic.updateStatus();
-                    epic.updateTimeAndDuration();
+                    epic.updateSubtask(subtask);
+                    epicStatuses.update(epic);
+                    changeFeed.publish(TaskEvent.Action.UPDATED, epic);
                 }
-                prioritizedTasks.add(subtask);
+                addPrioritized(subtask);
             } else {
+                addPrioritized(oldSubtask);
                 System.out.println("Ошибка: новая версия подзадачи пересекается по времени.");
             }
         } else {
@@ -111,21 +166,28 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteTask(int taskId) {
         Task task = tasks.remove(taskId);
         if (task != null) {
+            taskIds.remove(taskId);
+            taskStatuses.remove(taskId);
             historyManager.remove(taskId);
-            prioritizedTasks.remove(task);
+            removePrioritized(task);
+            changeFeed.publish(TaskEvent.Action.DELETED, task);
         }
     }
 
     public void deleteSubtask(int subtaskId) {
         Subtask subtask = subtasks.remove(subtaskId);
         if (subtask != null) {
+            subtaskIds.remove(subtaskId);
+            subtaskStatuses.remove(subtaskId);
+            changeFeed.publish(TaskEvent.Action.DELETED, subtask);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
                 epic.removeSubtask(subtask);
-                epic.updateStatus();
+                epicStatuses.update(epic);
+                changeFeed.publish(TaskEvent.Action.UPDATED, epic);
             }
             historyManager.remove(subtaskId);
-            prioritizedTasks.remove(subtask);
+            removePrioritized(subtask);
         } else {
             System.out.println("Подзадача с id " + subtaskId + " не существует");
         }
@@ -134,12 +196,18 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpic(int epicId) {
         Epic epic = epics.remove(epicId);
         if (epic != null) {
+            epicIds.remove(epicId);
+            epicStatuses.remove(epicId);
             for (Subtask subtask : epic.getSubtasks()) {
                 subtasks.remove(subtask.getId());
+                subtaskIds.remove(subtask.getId());
+                subtaskStatuses.remove(subtask.getId());
                 historyManager.remove(subtask.getId());
-                prioritizedTasks.remove(subtask);
+                removePrioritized(subtask);
+                changeFeed.publish(TaskEvent.Action.DELETED, subtask);
             }
             historyManager.remove(epicId);
+            changeFeed.publish(TaskEvent.Action.DELETED, epic);
         } else {
             System.out.println("Эпик с id " + epicId + " не существует");
         }
@@ -149,9 +217,12 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteAllTasks() {
         for (Task task : tasks.values()) {
             historyManager.remove(task.getId());
-            prioritizedTasks.remove(task);
+            removePrioritized(task);
+            changeFeed.publish(TaskEvent.Action.DELETED, task);
         }
         tasks.clear();
+        taskIds.clear();
+        taskStatuses.clear();
     }
 
     // Удаление всех Эпиков
@@ -159,24 +230,257 @@ public class InMemoryTaskManager implements TaskManager {
         for (Epic epic : epics.values()) {
             for (Subtask subtask : epic.getSubtasks()) {
                 historyManager.remove(subtask.getId());
-                prioritizedTasks.remove(subtask);
+                removePrioritized(subtask);
+                changeFeed.publish(TaskEvent.Action.DELETED, subtask);
             }
             subtasks.clear();
             historyManager.remove(epic.getId());
+            changeFeed.publish(TaskEvent.Action.DELETED, epic);
         }
         epics.clear();
+        epicIds.clear();
+        subtaskIds.clear();
+        epicStatuses.clear();
+        subtaskStatuses.clear();
     }
 
     // Удаление всех подзадач
     public void deleteAllSubtasks() {
         for (Subtask subtask : subtasks.values()) {
             historyManager.remove(subtask.getId());
-            prioritizedTasks.remove(subtask);
+            removePrioritized(subtask);
+            changeFeed.publish(TaskEvent.Action.DELETED, subtask);
         }
         for (Epic epic : epics.values()) {
-            epic.getSubtasks().clear();
+            boolean changed = !epic.getSubtasks().isEmpty();
+            epic.clearSubtasks();
+            epicStatuses.update(epic);
+            if (changed) {
+                changeFeed.publish(TaskEvent.Action.UPDATED, epic);
+            }
         }
         subtasks.clear();
+        subtaskIds.clear();
+        subtaskStatuses.clear();
+    }
+
+    // Создаёт все задачи, эпики и подзадачи пакета или ни одной. Пересечения по времени внутри пакета
+    // проверяются одним проходом по интервалам, отсортированным по началу, с существующими - по индексу;
+    // подзадачи добавляются в каждый эпик одним пакетом
+    @Override
+    public List<Task> createAll(List<? extends Task> batch) {
+        List<Task> timed = new ArrayList<>();
+        for (Task task : batch) {
+            if (task.getType() == TaskType.SUBTASK) {
+                int epicId = ((Subtask) task).getEpicId();
+                if (!epics.containsKey(epicId)) {
+                    throw new NotFoundException("Эпик с id " + epicId + " не найден");
+                }
+            }
+            if (task.getType() != TaskType.EPIC && task.hasStartTime()) {
+                if (!isTimeSlotAvailable(task)) {
+                    throw new TimeOverlapException("Ошибка: нельзя добавлять пересекающиеся задачи.");
+                }
+                timed.add(task);
+            }
+        }
+        checkBatchOverlaps(timed);
+
+        IntMap<List<Subtask>> subtasksByEpic = new IntMap<>();
+        for (Task task : batch) {
+            if (task.getType() == TaskType.EPIC) {
+                insertEpic((Epic) task);
+            } else if (task.getType() == TaskType.SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                insertSubtask(subtask);
+                groupByEpic(subtasksByEpic, subtask);
+            } else {
+                insertTask(task);
+            }
+        }
+        for (int epicId : subtasksByEpic.keys()) {
+            Epic epic = epics.get(epicId);
+            epic.addSubtasks(subtasksByEpic.get(epicId));
+            epicStatuses.update(epic);
+            changeFeed.publish(TaskEvent.Action.UPDATED, epic);
+        }
+        return new ArrayList<>(batch);
+    }
+
+    // Обновляет все элементы пакета или ни одного: все id должны существовать, новые интервалы
+    // не должны пересекаться ни между собой, ни с задачами вне пакета
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        List<Task> previous = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            Task stored = findStored(task.getType(), task.getId());
+            if (stored == null) {
+                throw new NotFoundException("Задача с id " + task.getId() + " не найдена");
+            }
+            previous.add(stored);
+        }
+
+        List<Task> timed = new ArrayList<>();
+        for (Task stored : previous) {
+            removePrioritized(stored);
+        }
+        try {
+            for (Task task : batch) {
+                if (task.getType() != TaskType.EPIC && task.hasStartTime()) {
+                    if (!isTimeSlotAvailable(task)) {
+                        throw new TimeOverlapException("Ошибка: новая версия задачи пересекается по времени.");
+                    }
+                    timed.add(task);
+                }
+            }
+            checkBatchOverlaps(timed);
+        } catch (IllegalArgumentException e) {
+            for (Task stored : previous) {
+                if (stored.getType() != TaskType.EPIC) {
+                    addPrioritized(stored);
+                }
+            }
+            throw e;
+        }
+
+        IntMap<List<Subtask>> subtasksByEpic = new IntMap<>();
+        IntMap<Epic> changedEpics = new IntMap<>();
+        for (Task task : batch) {
+            if (task.getType() == TaskType.EPIC) {
+                Epic epic = (Epic) task;
+                epics.put(epic.getId(), epic);
+                epic.updateStatus();
+                changedEpics.put(epic.getId(), epic);
+            } else if (task.getType() == TaskType.SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                subtasks.put(subtask.getId(), subtask);
+                subtaskStatuses.update(subtask);
+                addPrioritized(subtask);
+                groupByEpic(subtasksByEpic, subtask);
+                changeFeed.publish(TaskEvent.Action.UPDATED, subtask);
+            } else {
+                tasks.put(task.getId(), task);
+                taskStatuses.update(task);
+                addPrioritized(task);
+                changeFeed.publish(TaskEvent.Action.UPDATED, task);
+            }
+        }
+        for (int epicId : subtasksByEpic.keys()) {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                epic.updateSubtasks(subtasksByEpic.get(epicId));
+                changedEpics.put(epicId, epic);
+            }
+        }
+        for (Epic epic : changedEpics.values()) {
+            epicStatuses.update(epic);
+            changeFeed.publish(TaskEvent.Action.UPDATED, epic);
+        }
+    }
+
+    // Удаляет задачи, эпики (вместе с подзадачами) и подзадачи с указанными id или ничего,
+    // если хотя бы одного id нет; подзадачи убираются из каждого эпика одним пакетом
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        for (int id : ids) {
+            if (!tasks.containsKey(id) && !epics.containsKey(id) && !subtasks.containsKey(id)) {
+                throw new NotFoundException("Задача с id " + id + " не найдена");
+            }
+        }
+
+        IntMap<List<Subtask>> subtasksByEpic = new IntMap<>();
+        for (int id : ids) {
+            Task task = tasks.remove(id);
+            if (task != null) {
+                taskIds.remove(id);
+                taskStatuses.remove(id);
+                historyManager.remove(id);
+                removePrioritized(task);
+                changeFeed.publish(TaskEvent.Action.DELETED, task);
+                continue;
+            }
+            Subtask subtask = subtasks.remove(id);
+            if (subtask != null) {
+                removeSubtaskEntry(subtask);
+                groupByEpic(subtasksByEpic, subtask);
+                continue;
+            }
+            Epic epic = epics.remove(id);
+            if (epic != null) {
+                epicIds.remove(id);
+                epicStatuses.remove(id);
+                for (Subtask epicSubtask : epic.getSubtasks()) {
+                    if (subtasks.remove(epicSubtask.getId()) != null) {
+                        removeSubtaskEntry(epicSubtask);
+                    }
+                }
+                historyManager.remove(id);
+                changeFeed.publish(TaskEvent.Action.DELETED, epic);
+            }
+        }
+        for (int epicId : subtasksByEpic.keys()) {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                epic.removeSubtasks(subtasksByEpic.get(epicId));
+                epicStatuses.update(epic);
+                changeFeed.publish(TaskEvent.Action.UPDATED, epic);
+            }
+        }
+    }
+
+    // deleteAll, ограниченный одним типом: id задач другого типа считаются ненайденными
+    @Override
+    public void deleteAll(TaskType type, Collection<Integer> ids) {
+        for (int id : ids) {
+            if (findStored(type, id) == null) {
+                throw new NotFoundException("Задача с id " + id + " не найдена");
+            }
+        }
+        deleteAll(ids);
+    }
+
+    // Подзадача уже убрана из хранилища; связь с эпиком снимает вызывающий
+    private void removeSubtaskEntry(Subtask subtask) {
+        subtaskIds.remove(subtask.getId());
+        subtaskStatuses.remove(subtask.getId());
+        historyManager.remove(subtask.getId());
+        removePrioritized(subtask);
+        changeFeed.publish(TaskEvent.Action.DELETED, subtask);
+    }
+
+    private Task findStored(TaskType type, int id) {
+        switch (type) {
+            case TASK:
+                return tasks.get(id);
+            case EPIC:
+                return epics.get(id);
+            case SUBTASK:
+                return subtasks.get(id);
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    static void groupByEpic(IntMap<List<Subtask>> subtasksByEpic, Subtask subtask) {
+        List<Subtask> group = subtasksByEpic.get(subtask.getEpicId());
+        if (group == null) {
+            group = new ArrayList<>();
+            subtasksByEpic.put(subtask.getEpicId(), group);
+        }
+        group.add(subtask);
+    }
+
+    // Интервалы пакета по возрастанию начала (при равном - конца): задача пересекается с одной из предыдущих,
+    // только если начинается раньше наибольшего из их концов
+    private static void checkBatchOverlaps(List<Task> timed) {
+        timed.sort(Comparator.comparingLong(Task::getStartMinute).thenComparingLong(Task::getEndMinute));
+        long maxEnd = Long.MIN_VALUE;
+        for (Task task : timed) {
+            if (task.getStartMinute() < maxEnd) {
+                throw new TimeOverlapException("Ошибка: задачи пакета пересекаются по времени.");
+            }
+            maxEnd = Math.max(maxEnd, task.getEndMinute());
+        }
     }
 
     @Override
@@ -186,6 +490,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Задача с id " + id + " не найдена");
         }
         historyManager.add(task);
+        views.increment();
         return task;
     }
 
@@ -196,6 +501,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Эпик с id " + id + " не найден");
         }
         historyManager.add(epic);
+        views.increment();
         return epic;
     }
 
@@ -206,6 +512,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Подзадача с id " + id + " не найдена");
         }
         historyManager.add(subtask);
+        views.increment();
         return subtask;
     }
 
@@ -214,24 +521,241 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return prioritizedTasks.toList();
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        checkLimit(limit);
+        List<Task> page = new ArrayList<>();
+        for (int id : taskIds.idsAfter(afterId, limit)) {
+            page.add(tasks.get(id));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        checkLimit(limit);
+        List<Epic> page = new ArrayList<>();
+        for (int id : epicIds.idsAfter(afterId, limit)) {
+            page.add(epics.get(id));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        checkLimit(limit);
+        List<Subtask> page = new ArrayList<>();
+        for (int id : subtaskIds.idsAfter(afterId, limit)) {
+            page.add(subtasks.get(id));
+        }
+        return page;
+    }
+
+    // Задачи со временем, пересекающиеся с окном [from, to), в порядке начала; null - граница не задана
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала позже его конца");
+        }
+        long fromMinute = from == null ? Long.MIN_VALUE : Task.toEpochMinute(from);
+        long toMinute = to == null ? Long.MAX_VALUE : ceilMinute(to);
+        return timeSlots.between(fromMinute, toMinute);
+    }
+
+    // Свободные промежутки внутри [from, to), в которые помещается задача длительностью duration
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to) {
+        if (duration == null || duration.toMinutes() <= 0) {
+            throw new IllegalArgumentException("Длительность должна быть положительной");
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Нужно указать начало и конец интервала");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала позже его конца");
+        }
+        return timeSlots.freeSlots(ceilMinute(from), Task.toEpochMinute(to), duration.toMinutes());
+    }
+
+    // Ставит задачу (или подзадачу) в самый ранний свободный промежуток не раньше её startTime,
+    // а без startTime - не раньше текущей минуты, и создаёт её
+    @Override
+    public Task scheduleNext(Task task) {
+        if (task.getType() == TaskType.EPIC) {
+            throw new IllegalArgumentException("Время эпика определяется его подзадачами");
+        }
+        if (task.getDurationMinutes() <= 0) {
+            throw new IllegalArgumentException("Длительность должна быть положительной");
+        }
+        long from = task.hasStartTime() ? task.getStartMinute() : ceilMinute(LocalDateTime.now());
+        long start = timeSlots.earliestStart(from, task.getDurationMinutes());
+        if (start == Task.NO_TIME) {
+            throw new IllegalArgumentException("Нет свободного промежутка для задачи");
+        }
+        task.setStartMinute(start);
+        return task.getType() == TaskType.SUBTASK ? createSubtask((Subtask) task) : createTask(task);
+    }
+
+    // Время задач хранится с точностью до минуты
+    private static long ceilMinute(LocalDateTime time) {
+        long minute = Task.toEpochMinute(time);
+        return time.getSecond() != 0 || time.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    // Курсор - id последней задачи предыдущей страницы, страница продолжается сразу после неё
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        checkLimit(limit);
+        return prioritizedTasks.page(afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return getTasksByStatus(status, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return getEpicsByStatus(status, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return getSubtasksByStatus(status, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, int afterId, int limit) {
+        checkLimit(limit);
+        List<Task> page = new ArrayList<>();
+        for (int id : taskStatuses.idsAfter(status, afterId, limit)) {
+            page.add(tasks.get(id));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status, int afterId, int limit) {
+        checkLimit(limit);
+        List<Epic> page = new ArrayList<>();
+        for (int id : epicStatuses.idsAfter(status, afterId, limit)) {
+            page.add(epics.get(id));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status, int afterId, int limit) {
+        checkLimit(limit);
+        List<Subtask> page = new ArrayList<>();
+        for (int id : subtaskStatuses.idsAfter(status, afterId, limit)) {
+            page.add(subtasks.get(id));
+        }
+        return page;
+    }
+
+    @Override
+    public int getCount(TaskType type) {
+        switch (type) {
+            case TASK:
+                return tasks.size();
+            case EPIC:
+                return epics.size();
+            case SUBTASK:
+                return subtasks.size();
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    @Override
+    public int getCount(TaskType type, Status status) {
+        return statusIndex(type).count(status);
+    }
+
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    @Override
+    public long getChangeCount(TaskType type) {
+        return statusIndex(type).changeCount();
+    }
+
+    @Override
+    public long getHistoryChangeCount() {
+        return views.sum();
+    }
+
+    private StatusIndex statusIndex(TaskType type) {
+        switch (type) {
+            case TASK:
+                return taskStatuses;
+            case EPIC:
+                return epicStatuses;
+            case SUBTASK:
+                return subtaskStatuses;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+    }
+
+    // Восстанавливает индексы идентификаторов и статусов по содержимому хранилищ (после загрузки из файла).
+    // Статусы эпиков к этому моменту должны быть уже пересчитаны
+    protected void rebuildIdIndexes() {
+        rebuildIdIndex(taskIds, taskStatuses, tasks);
+        rebuildIdIndex(epicIds, epicStatuses, epics);
+        rebuildIdIndex(subtaskIds, subtaskStatuses, subtasks);
+    }
+
+    private static void rebuildIdIndex(IdIndex index, StatusIndex statuses, IntMap<? extends Task> storage) {
+        int[] sorted = storage.keys();
+        Arrays.sort(sorted);
+        index.clear();
+        statuses.clear();
+        for (int id : sorted) {
+            index.add(id);
+            statuses.update(storage.get(id));
+        }
+    }
+
+    // Заполняет приоритетный список и индекс интервалов заново по всем задачам и подзадачам
+    protected void rebuildPrioritized() {
+        List<Task> all = new ArrayList<>(tasks.size() + subtasks.size());
+        all.addAll(tasks.values());
+        all.addAll(subtasks.values());
+        prioritizedTasks.rebuild(all);
+        timeSlots.rebuild(all);
+    }
+
+    protected void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        timeSlots.add(task);
+    }
+
+    protected void removePrioritized(Task task) {
+        prioritizedTasks.remove(task.getId());
+        timeSlots.remove(task.getId());
     }
 
     private boolean isTimeSlotAvailable(Task newTask) {
-        if (newTask.getStartTime() == null) {
-            return true;
-        }
-        LocalDateTime newStart = newTask.getStartTime();
-        LocalDateTime newEnd = newTask.getEndTime();
-
-        return prioritizedTasks.stream()
-                .filter(task -> task.getStartTime() != null && task.getEndTime() != null)
-                .noneMatch(existingTask -> {
-                    LocalDateTime existingStart = existingTask.getStartTime();
-                    LocalDateTime existingEnd = existingTask.getEndTime();
-                    return newStart.isBefore(existingEnd) && newEnd.isAfter(existingStart);
-                });
+        return timeSlots.isAvailable(newTask);
     }
 }
@@ -0,0 +1,249 @@
+package managers;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Отображение int -> V без упаковки ключей и без объекта на каждую запись.
+// Записи лежат плотными массивами в порядке добавления (как раньше обходился HashMap
+// с возрастающими id), а поиск идёт по отдельной таблице с открытой адресацией,
+// хранящей номера записей. Удалённая запись помечается пустой и вычищается при следующем росте.
+class IntMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    // Номер записи + 1, 0 - свободная ячейка; размер - степень двойки, не меньше двух длин массива записей
+    private int[] slots;
+    private int mask;
+    private int used;
+    private int size;
+
+    IntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    IntMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slots[slot] - 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int entry = slots[slot] - 1;
+            V previous = (V) values[entry];
+            values[entry] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            // Если больше половины записей удалены, хватит уплотнения без роста
+            resize(size * 2 > keys.length ? keys.length * 2 : keys.length);
+        }
+        keys[used] = key;
+        values[used] = value;
+        used++;
+        size++;
+        insertSlot(key, used);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        int entry = slots[slot] - 1;
+        V previous = (V) values[entry];
+        values[entry] = null;
+        size--;
+        deleteSlot(slot);
+        return previous;
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    // Ключи в порядке добавления
+    int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    // Представление значений в порядке добавления; iterator().remove() поддерживается
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Object[] toArray() {
+                Object[] result = new Object[size];
+                int count = 0;
+                for (int i = 0; i < used; i++) {
+                    if (values[i] != null) {
+                        result[count++] = values[i];
+                    }
+                }
+                return result;
+            }
+        };
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private int next = advance(0);
+        private int current = -1;
+
+        private int advance(int from) {
+            while (from < used && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = advance(next + 1);
+            return (V) values[current];
+        }
+
+        // Удаление не сдвигает записи, поэтому обход продолжается с того же места
+        @Override
+        public void remove() {
+            if (current < 0 || values[current] == null) {
+                throw new IllegalStateException();
+            }
+            IntMap.this.remove(keys[current]);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int key) {
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertSlot(int key, int entry) {
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+    }
+
+    // Удаление со сдвигом назад: следующие записи цепочки переносятся в освободившуюся ячейку
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            int entry = slots[current];
+            if (entry == 0) {
+                break;
+            }
+            int home = hash(keys[entry - 1]) & mask;
+            // Запись можно перенести, если её исходная ячейка не лежит циклически в (gap, current]
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                slots[gap] = entry;
+                gap = current;
+            }
+        }
+        slots[gap] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        slots = new int[tableSize(capacity)];
+        mask = slots.length - 1;
+        used = 0;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        if (slots.length < tableSize(capacity)) {
+            slots = new int[tableSize(capacity)];
+            mask = slots.length - 1;
+        } else {
+            Arrays.fill(slots, 0);
+        }
+        used = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldValues[i] != null) {
+                keys[used] = oldKeys[i];
+                values[used] = oldValues[i];
+                used++;
+                insertSlot(oldKeys[i], used);
+            }
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) * 2;
+    }
+}
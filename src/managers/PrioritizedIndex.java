@@ -0,0 +1,128 @@
+package managers;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Задачи в порядке приоритета: со временем - по (началу, id), без времени - отдельно по id, в конце списка.
+// Порядок полный, поэтому задачи с одинаковым началом или без времени не схлопываются в одну.
+// Ключ, под которым задача лежит в дереве, запоминается по id: изменение задачи через сеттеры
+// не мешает потом найти и удалить именно её.
+class PrioritizedIndex {
+    private static class Entry {
+        final long start;
+        final int id;
+        final Task task;
+
+        Entry(long start, int id, Task task) {
+            this.start = start;
+            this.id = id;
+            this.task = task;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = (first, second) -> first.start != second.start
+            ? Long.compare(first.start, second.start) : Integer.compare(first.id, second.id);
+
+    private final TreeSet<Entry> timed = new TreeSet<>(ORDER);
+    private final IntMap<Entry> timedById = new IntMap<>();
+    private final TreeMap<Integer, Task> untimed = new TreeMap<>();
+
+    void add(Task task) {
+        remove(task.getId());
+        if (task.hasStartTime()) {
+            Entry entry = new Entry(task.getStartMinute(), task.getId(), task);
+            timed.add(entry);
+            timedById.put(entry.id, entry);
+        } else {
+            untimed.put(task.getId(), task);
+        }
+    }
+
+    // Заполняет индекс заново: задачи сортируются один раз и вставляются без предварительного удаления
+    void rebuild(Collection<? extends Task> tasks) {
+        clear();
+        List<Entry> sorted = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task.hasStartTime()) {
+                sorted.add(new Entry(task.getStartMinute(), task.getId(), task));
+            } else {
+                untimed.put(task.getId(), task);
+            }
+        }
+        sorted.sort(ORDER);
+        for (Entry entry : sorted) {
+            timed.add(entry);
+            timedById.put(entry.id, entry);
+        }
+    }
+
+    void remove(int id) {
+        Entry entry = timedById.remove(id);
+        if (entry != null) {
+            timed.remove(entry);
+        } else {
+            untimed.remove(id);
+        }
+    }
+
+    int size() {
+        return timed.size() + untimed.size();
+    }
+
+    void clear() {
+        timed.clear();
+        timedById.clear();
+        untimed.clear();
+    }
+
+    List<Task> toList() {
+        List<Task> result = new ArrayList<>(size());
+        for (Entry entry : timed) {
+            result.add(entry.task);
+        }
+        result.addAll(untimed.values());
+        return result;
+    }
+
+    // Не более limit задач, следующих за задачей afterId (0 - с начала); afterId должен быть в индексе
+    List<Task> page(int afterId, int limit) {
+        List<Task> page = new ArrayList<>();
+        Iterable<Task> untimedTail = untimed.values();
+        if (afterId > 0) {
+            Entry after = timedById.get(afterId);
+            if (after != null) {
+                addUpTo(page, timed.tailSet(after, false), limit);
+            } else if (untimed.containsKey(afterId)) {
+                untimedTail = untimed.tailMap(afterId, false).values();
+            } else {
+                throw new NotFoundException("Задача с id " + afterId + " не найдена");
+            }
+        } else {
+            addUpTo(page, timed, limit);
+        }
+        if (page.size() < limit) {
+            for (Task task : untimedTail) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(task);
+            }
+        }
+        return page;
+    }
+
+    private static void addUpTo(List<Task> page, Iterable<Entry> entries, int limit) {
+        for (Entry entry : entries) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(entry.task);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package managers;
+
+// Формат файла снимка FileBackedTaskManager; при загрузке формат определяется автоматически
+public enum SnapshotFormat {
+    // Текстовый CSV: одна строка на задачу, пригоден для импорта и экспорта
+    CSV,
+    // Компактный двоичный формат с быстрой параллельной загрузкой
+    BINARY
+}
@@ -0,0 +1,67 @@
+package managers;
+
+import tasks.Status;
+import tasks.Task;
+
+// Идентификаторы задач одного типа, разложенные по статусам: счётчик за O(1),
+// выборка по статусу - за O(log N + размер результата) в порядке id.
+// Статус, под которым задача проиндексирована, запоминается отдельно: объект задачи
+// мог быть изменён через сеттеры до вызова update.
+// Менеджер обновляет индекс при каждом изменении коллекции, поэтому здесь же считаются изменения (для ETag).
+class StatusIndex {
+    private static final Status[] STATUSES = Status.values();
+
+    private final IdIndex[] byStatus = new IdIndex[STATUSES.length];
+    private final IntMap<Status> indexed = new IntMap<>();
+    private long changeCount;
+
+    StatusIndex() {
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new IdIndex();
+        }
+    }
+
+    // Переносит задачу в индекс её текущего статуса; задачи без статуса не индексируются
+    void update(Task task) {
+        changeCount++;
+        Status status = task.getStatus();
+        Status previous = status != null ? indexed.put(task.getId(), status) : indexed.remove(task.getId());
+        if (previous == status) {
+            return;
+        }
+        if (previous != null) {
+            byStatus[previous.ordinal()].remove(task.getId());
+        }
+        if (status != null) {
+            byStatus[status.ordinal()].add(task.getId());
+        }
+    }
+
+    void remove(int id) {
+        changeCount++;
+        Status previous = indexed.remove(id);
+        if (previous != null) {
+            byStatus[previous.ordinal()].remove(id);
+        }
+    }
+
+    void clear() {
+        changeCount++;
+        for (IdIndex index : byStatus) {
+            index.clear();
+        }
+        indexed.clear();
+    }
+
+    long changeCount() {
+        return changeCount;
+    }
+
+    int count(Status status) {
+        return byStatus[status.ordinal()].size();
+    }
+
+    int[] idsAfter(Status status, int afterId, int limit) {
+        return byStatus[status.ordinal()].idsAfter(afterId, limit);
+    }
+}
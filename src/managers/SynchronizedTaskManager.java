@@ -0,0 +1,289 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+import tasks.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Обёртка для менеджера без собственной синхронизации (InMemoryTaskManager, FileBackedTaskManager):
+// каждый вызов выполняется под одной блокировкой, и чтения тоже - просмотр записывается в историю.
+// Блокировка держится только на время вызова, а наружу, как у ConcurrentTaskManager, отдаются копии:
+// ответ сериализуется и отправляется клиенту уже без неё, и ожидание записи на диск (getCommitFuture)
+// тоже идёт без неё
+public class SynchronizedTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SynchronizedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    private <T> T locked(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void locked(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T copy(T task) {
+        return task == null ? null : (T) task.copy();
+    }
+
+    private static <T extends Task> List<T> copyAll(List<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add(copy(task));
+        }
+        return copies;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return locked(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return locked(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return locked(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return locked(() -> copyAll(delegate.getAllTasks()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return locked(() -> copyAll(delegate.getAllEpics()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return locked(() -> copyAll(delegate.getAllSubtasks()));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        locked(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        locked(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        locked(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        return locked(() -> copyAll(delegate.getSubtasksByEpic(epicId)));
+    }
+
+    @Override
+    public void deleteTask(int taskId) {
+        locked(() -> delegate.deleteTask(taskId));
+    }
+
+    @Override
+    public void deleteSubtask(int subtaskId) {
+        locked(() -> delegate.deleteSubtask(subtaskId));
+    }
+
+    @Override
+    public void deleteEpic(int epicId) {
+        locked(() -> delegate.deleteEpic(epicId));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        locked(delegate::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        locked(delegate::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        locked(delegate::deleteAllSubtasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return locked(() -> copy(delegate.getTaskById(id)));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return locked(() -> copy(delegate.getEpicById(id)));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return locked(() -> copy(delegate.getSubtaskById(id)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return locked(() -> copyAll(delegate.getHistory()));
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return locked(() -> copyAll(delegate.getHistory(limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return locked(() -> copyAll(delegate.getPrioritizedTasks()));
+    }
+
+    @Override
+    public List<Task> getTasks(int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getTasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpics(int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getEpics(afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getSubtasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getPrioritizedTasks(afterId, limit)));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return locked(() -> copyAll(delegate.getTasksBetween(from, to)));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to) {
+        return locked(() -> delegate.findFreeSlots(duration, from, to));
+    }
+
+    @Override
+    public Task scheduleNext(Task task) {
+        return locked(() -> delegate.scheduleNext(task));
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> batch) {
+        return locked(() -> delegate.createAll(batch));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        locked(() -> delegate.updateAll(batch));
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        locked(() -> delegate.deleteAll(ids));
+    }
+
+    @Override
+    public void deleteAll(TaskType type, Collection<Integer> ids) {
+        locked(() -> delegate.deleteAll(type, ids));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return locked(() -> copyAll(delegate.getTasksByStatus(status)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return locked(() -> copyAll(delegate.getEpicsByStatus(status)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return locked(() -> copyAll(delegate.getSubtasksByStatus(status)));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getTasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status, int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getEpicsByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status, int afterId, int limit) {
+        return locked(() -> copyAll(delegate.getSubtasksByStatus(status, afterId, limit)));
+    }
+
+    @Override
+    public int getCount(TaskType type) {
+        return locked(() -> delegate.getCount(type));
+    }
+
+    @Override
+    public int getCount(TaskType type, Status status) {
+        return locked(() -> delegate.getCount(type, status));
+    }
+
+    @Override
+    public long getChangeCount(TaskType type) {
+        return locked(() -> delegate.getChangeCount(type));
+    }
+
+    @Override
+    public long getHistoryChangeCount() {
+        return locked(delegate::getHistoryChangeCount);
+    }
+
+    // Лента синхронизирована сама
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return delegate.getChangeFeed();
+    }
+
+    // Будущее хранится для каждого потока отдельно, поэтому его можно взять и ждать без блокировки
+    @Override
+    public CompletableFuture<Void> getCommitFuture() {
+        return delegate.getCommitFuture();
+    }
+}
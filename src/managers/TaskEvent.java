@@ -0,0 +1,56 @@
+package managers;
+
+import tasks.Epic;
+import tasks.Task;
+import tasks.TaskType;
+
+// Изменение, применённое менеджером. Номера событий идут подряд в порядке применения изменений
+public class TaskEvent {
+    public enum Action {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final long sequence;
+    private final Action action;
+    private final TaskType type;
+    private final int id;
+    // Копия задачи на момент изменения; для DELETED - null. Снимается при публикации, пока менеджер ещё
+    // держит блокировку записи: лента отдаёт событие позже и из другого потока, когда оригинал уже мог измениться.
+    // Эпик копируется без подзадач: кольцо ленты хранит тысячи событий, а об изменении подзадачи
+    // сообщает её собственное событие
+    private final Task task;
+
+    TaskEvent(long sequence, Action action, Task task) {
+        this.sequence = sequence;
+        this.action = action;
+        this.type = task.getType();
+        this.id = task.getId();
+        this.task = action == Action.DELETED ? null : snapshot(task);
+    }
+
+    private static Task snapshot(Task task) {
+        return task instanceof Epic ? ((Epic) task).copyWithoutSubtasks() : task.copy();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+}
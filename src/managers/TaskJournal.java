@@ -0,0 +1,366 @@
+package managers;
+
+import tasks.Task;
+import tasks.TaskType;
+import utils.TaskConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Журнал изменений: одна короткая запись на каждую операцию вместо перезаписи всего файла.
+// Записи пакета обрамляются строками BEGIN,<число записей> и COMMIT: пакет без COMMIT
+// (запись оборвалась посреди пакета) при чтении отбрасывается целиком
+class TaskJournal {
+    private static final String PUT = "PUT,";
+    private static final String DELETE = "DEL,";
+    private static final String CLEAR = "CLEAR,";
+    private static final String BEGIN = "BEGIN,";
+    private static final String COMMIT = "COMMIT";
+
+    interface Sink {
+        void put(Task task);
+
+        void delete(int id);
+
+        void clear(TaskType type);
+    }
+
+    private static class Pending {
+        final byte[] record;
+        final CompletableFuture<Void> future;
+
+        Pending(byte[] record, CompletableFuture<Void> future) {
+            this.record = record;
+            this.future = future;
+        }
+    }
+
+    private final File file;
+    private final Durability durability;
+    private final long maxDelayMillis;
+    private final int maxBatchSize;
+
+    private FileChannel channel;
+    // Добавляется вызывающими потоками без блокировки журнала, обнуляется в truncate() под ней
+    private final AtomicInteger records = new AtomicInteger();
+    // Меняется только в write() под блокировкой журнала
+    private volatile long syncCount;
+
+    // Очередь записей для фонового сброса (GROUP_COMMIT и ASYNC)
+    private final Object pendingLock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private CompletableFuture<Void> lastFuture = CompletableFuture.completedFuture(null);
+    private boolean flushRequested;
+    private boolean closed;
+    private Thread flusher;
+
+    TaskJournal(File file, Durability durability, long maxDelayMillis, int maxBatchSize) {
+        this.file = file;
+        this.durability = durability;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    Durability getDurability() {
+        return durability;
+    }
+
+    CompletableFuture<Void> appendPut(Task task) {
+        StringBuilder record = new StringBuilder(128).append(PUT);
+        TaskConverter.appendTo(task, record);
+        return append(record.toString());
+    }
+
+    CompletableFuture<Void> appendDelete(int id) {
+        return append(DELETE + id);
+    }
+
+    CompletableFuture<Void> appendClear(TaskType type) {
+        return append(CLEAR + type);
+    }
+
+    // Записи пакета уходят в файл одним блоком, подтверждаются и восстанавливаются вместе
+    CompletableFuture<Void> appendPuts(Collection<? extends Task> batch) {
+        StringBuilder records = beginBatch(128, batch.size());
+        for (Task task : batch) {
+            records.append(PUT);
+            TaskConverter.appendTo(task, records);
+            records.append('\n');
+        }
+        return appendRecords(commitBatch(records, batch.size()), batch.size());
+    }
+
+    CompletableFuture<Void> appendDeletes(Collection<Integer> ids) {
+        StringBuilder records = beginBatch(16, ids.size());
+        for (int id : ids) {
+            records.append(DELETE).append(id).append('\n');
+        }
+        return appendRecords(commitBatch(records, ids.size()), ids.size());
+    }
+
+    // Одиночная запись атомарна сама по себе, обрамление нужно только пакету из нескольких
+    private static StringBuilder beginBatch(int recordSize, int count) {
+        StringBuilder records = new StringBuilder(recordSize * count + 16);
+        if (count > 1) {
+            records.append(BEGIN).append(count).append('\n');
+        }
+        return records;
+    }
+
+    private static String commitBatch(StringBuilder records, int count) {
+        if (count > 1) {
+            records.append(COMMIT).append('\n');
+        }
+        return records.toString();
+    }
+
+    int size() {
+        return records.get();
+    }
+
+    // Число сбросов на диск (fsync): вместе с числом записей показывает, насколько велики пакеты
+    long getSyncCount() {
+        return syncCount;
+    }
+
+    void replay(Sink sink) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+            int start = 0;
+            int end;
+            // Конец последней применённой записи или пакета: всё после него отрезается
+            int applied = 0;
+            // Записи открытого пакета, применяются только по COMMIT
+            List<Runnable> batch = null;
+            // Строка без завершающего перевода строки - оборванная запись, её пропускаем
+            while ((end = TaskConverter.recordEnd(content, start)) >= 0) {
+                if (content.startsWith(BEGIN, start)) {
+                    if (batch != null) {
+                        throw new IllegalArgumentException("Вложенный пакет в журнале: " + content.substring(start, end));
+                    }
+                    batch = new ArrayList<>(Integer.parseInt(content, start + BEGIN.length(), end, 10));
+                } else if (content.startsWith(COMMIT, start) && end - start == COMMIT.length()) {
+                    if (batch == null) {
+                        throw new IllegalArgumentException("COMMIT без начала пакета в журнале");
+                    }
+                    batch.forEach(Runnable::run);
+                    records.addAndGet(batch.size());
+                    batch = null;
+                    applied = end + 1;
+                } else {
+                    Runnable operation = parse(content, start, end, sink);
+                    if (batch != null) {
+                        batch.add(operation);
+                    } else {
+                        operation.run();
+                        records.incrementAndGet();
+                        applied = end + 1;
+                    }
+                }
+                start = end + 1;
+            }
+            if (applied < content.length()) {
+                truncateTo(content.substring(0, applied).getBytes(StandardCharsets.UTF_8).length);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении журнала", e);
+        }
+    }
+
+    // Запись разбирается сразу (ошибка формата видна независимо от пакета), а применяется позже
+    private static Runnable parse(String content, int start, int end, Sink sink) {
+        if (content.startsWith(PUT, start)) {
+            Task task = TaskConverter.fromString(content, start + PUT.length(), end);
+            return () -> sink.put(task);
+        } else if (content.startsWith(DELETE, start)) {
+            int id = Integer.parseInt(content, start + DELETE.length(), end, 10);
+            return () -> sink.delete(id);
+        } else if (content.startsWith(CLEAR, start)) {
+            TaskType type = TaskType.valueOf(content.substring(start + CLEAR.length(), end));
+            return () -> sink.clear(type);
+        }
+        throw new IllegalArgumentException("Некорректная запись журнала: " + content.substring(start, end));
+    }
+
+    // Отрезает оборванную запись или неподтверждённый пакет: иначе следующая запись допишется к ним
+    private synchronized void truncateTo(long length) throws IOException {
+        closeChannel();
+        try (FileChannel truncating = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            truncating.truncate(length);
+            truncating.force(false);
+        }
+    }
+
+    // Завершается, когда все записи, добавленные до вызова, сброшены на диск
+    CompletableFuture<Void> flush() {
+        synchronized (pendingLock) {
+            flushRequested = true;
+            pendingLock.notifyAll();
+            return lastFuture;
+        }
+    }
+
+    void truncate() {
+        flush().join();
+        synchronized (this) {
+            closeChannel();
+            try {
+                Files.write(file.toPath(), new byte[0]);
+                records.set(0);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при очистке журнала", e);
+            }
+        }
+    }
+
+    void close() {
+        Thread thread;
+        synchronized (pendingLock) {
+            closed = true;
+            pendingLock.notifyAll();
+            thread = flusher;
+            flusher = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    private CompletableFuture<Void> append(String record) {
+        return appendRecords(record + '\n', 1);
+    }
+
+    // lines - count записей, каждая завершена переводом строки
+    private CompletableFuture<Void> appendRecords(String lines, int count) {
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        records.addAndGet(count);
+
+        if (durability == Durability.SYNC) {
+            try {
+                write(List.of(bytes));
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (pendingLock) {
+            if (flusher == null) {
+                closed = false;
+                flusher = new Thread(this::flushLoop, "task-journal-flusher");
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            pending.add(new Pending(bytes, future));
+            lastFuture = future;
+            pendingLock.notifyAll();
+        }
+        return future;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (pendingLock) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        flushRequested = false;
+                        pendingLock.wait();
+                    }
+                    // ASYNC сбрасывает записи раз в окно ожидания. GROUP_COMMIT пишет сразу: пакет составляют
+                    // записи, пришедшие во время предыдущего fsync. Ждать окно здесь бесполезно - потоки, которые
+                    // ждут подтверждения своих записей, новых записей не добавят
+                    if (durability == Durability.ASYNC) {
+                        long deadline = System.currentTimeMillis() + maxDelayMillis;
+                        long remaining = maxDelayMillis;
+                        while (pending.size() < maxBatchSize && !flushRequested && !closed && remaining > 0) {
+                            pendingLock.wait(remaining);
+                            remaining = deadline - System.currentTimeMillis();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    closed = true;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                flushRequested = false;
+            }
+
+            List<byte[]> records = new ArrayList<>(batch.size());
+            for (Pending item : batch) {
+                records.add(item.record);
+            }
+            try {
+                write(records);
+                for (Pending item : batch) {
+                    item.future.complete(null);
+                }
+            } catch (IOException e) {
+                ManagerSaveException exception = new ManagerSaveException("Ошибка при записи в журнал", e);
+                for (Pending item : batch) {
+                    item.future.completeExceptionally(exception);
+                }
+            }
+        }
+    }
+
+    // Записывает пакет записей и сбрасывает его на диск одним fsync
+    private synchronized void write(List<byte[]> batch) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        int size = 0;
+        for (byte[] record : batch) {
+            size += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] record : batch) {
+            buffer.put(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        syncCount++;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии журнала", e);
+        } finally {
+            channel = null;
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package managers;
 
 import tasks.Epic;
+import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
+import tasks.TimeSlot;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface TaskManager {
     Task createTask(Task task);
@@ -47,5 +54,64 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    // Не более limit последних просмотренных задач
+    List<Task> getHistory(int limit);
+
     List<Task> getPrioritizedTasks();
+
+    // Постраничная выдача: не более limit элементов, следующих за элементом с id afterId (0 - с начала)
+    List<Task> getTasks(int afterId, int limit);
+
+    List<Epic> getEpics(int afterId, int limit);
+
+    List<Subtask> getSubtasks(int afterId, int limit);
+
+    List<Task> getPrioritizedTasks(int afterId, int limit);
+
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to);
+
+    Task scheduleNext(Task task);
+
+    List<Task> createAll(List<? extends Task> batch);
+
+    void updateAll(List<? extends Task> batch);
+
+    void deleteAll(Collection<Integer> ids);
+
+    // Удаляет только задачи типа type: если хотя бы один id другого типа или не найден, ничего не удаляется
+    void deleteAll(TaskType type, Collection<Integer> ids);
+
+    List<Task> getTasksByStatus(Status status);
+
+    List<Epic> getEpicsByStatus(Status status);
+
+    List<Subtask> getSubtasksByStatus(Status status);
+
+    List<Task> getTasksByStatus(Status status, int afterId, int limit);
+
+    List<Epic> getEpicsByStatus(Status status, int afterId, int limit);
+
+    List<Subtask> getSubtasksByStatus(Status status, int afterId, int limit);
+
+    int getCount(TaskType type);
+
+    int getCount(TaskType type, Status status);
+
+    // Номер изменения коллекции: растёт при каждом создании, обновлении и удалении элементов этого типа
+    // (эпик меняется и вместе со своими подзадачами). Пока номер прежний, содержимое коллекции то же
+    long getChangeCount(TaskType type);
+
+    // Растёт при каждом просмотре; удаления из истории отражаются в getChangeCount удалённого типа
+    long getHistoryChangeCount();
+
+    // События о каждом созданном, изменённом и удалённом элементе в порядке применения изменений
+    // (эпик считается изменённым и при изменении его подзадач)
+    ChangeFeed getChangeFeed();
+
+    // Завершается, когда подтверждено хранилищем последнее изменение, сделанное вызывающим потоком
+    default CompletableFuture<Void> getCommitFuture() {
+        return CompletableFuture.completedFuture(null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package managers;
+
+// Задача пересекается по времени с другой; наследует IllegalArgumentException, которым об этом сообщалось раньше
+public class TimeOverlapException extends IllegalArgumentException {
+    public TimeOverlapException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,202 @@
+package managers;
+
+import tasks.Task;
+import tasks.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+// Индекс интервалов [startTime, endTime) задач со временем для проверки пересечений за O(log N).
+// Хранит копии границ в минутах от эпохи, поэтому изменение задачи через сеттеры не ломает порядок в дереве.
+// Рядом поддерживается индекс свободных промежутков между интервалами для поиска места под новую задачу.
+class TimeSlotIndex {
+    // Границы расписания: свободное время до первой и после последней задачи
+    static final long MIN_MINUTE = Task.toEpochMinute(LocalDateTime.MIN);
+    static final long MAX_MINUTE = Task.toEpochMinute(LocalDateTime.MAX);
+
+    private static class Slot {
+        final long start;
+        final long end;
+        final int id;
+        final Task task;
+
+        // Ключ для поиска в дереве
+        Slot(long start, long end, int id) {
+            this(start, end, id, null);
+        }
+
+        Slot(long start, long end, int id, Task task) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.task = task;
+        }
+    }
+
+    // Порядок (start, end, id) без цепочки лямбд: сравнение вызывается на каждом шаге спуска по дереву
+    private static final Comparator<Slot> ORDER = (first, second) -> {
+        if (first.start != second.start) {
+            return Long.compare(first.start, second.start);
+        }
+        if (first.end != second.end) {
+            return Long.compare(first.end, second.end);
+        }
+        return Integer.compare(first.id, second.id);
+    };
+
+    private final TreeSet<Slot> slots = new TreeSet<>(ORDER);
+    private final IntMap<Slot> slotsById = new IntMap<>();
+    private final GapIndex gaps = new GapIndex();
+
+    TimeSlotIndex() {
+        gaps.add(MIN_MINUTE, MAX_MINUTE);
+    }
+
+    // Интервалы в индексе попарно не пересекаются, поэтому среди начавшихся раньше end
+    // наибольший конец имеет последний из них - достаточно проверить одного соседа
+    boolean isAvailable(long start, long end) {
+        Slot neighbour = slots.lower(new Slot(end, end, Integer.MIN_VALUE));
+        return neighbour == null || neighbour.end <= start;
+    }
+
+    // Задачи, пересекающиеся с окном [from, to), по времени начала: подмножество дерева
+    // с началом внутри окна и, по той же причине, что в isAvailable, не более одной задачи,
+    // начавшейся раньше from и ещё не закончившейся
+    List<Task> between(long from, long to) {
+        List<Task> result = new ArrayList<>();
+        Slot before = slots.lower(new Slot(from, Long.MIN_VALUE, Integer.MIN_VALUE));
+        if (before != null && before.end > from) {
+            result.add(before.task);
+        }
+        for (Slot slot : slots.subSet(new Slot(from, Long.MIN_VALUE, Integer.MIN_VALUE), true,
+                new Slot(to, Long.MIN_VALUE, Integer.MIN_VALUE), false)) {
+            result.add(slot.task);
+        }
+        return result;
+    }
+
+    boolean isAvailable(Task task) {
+        return !task.hasStartTime() || isAvailable(task.getStartMinute(), task.getEndMinute());
+    }
+
+    void add(Task task) {
+        if (!task.hasStartTime()) {
+            return;
+        }
+        remove(task.getId());
+        Slot slot = new Slot(task.getStartMinute(), task.getEndMinute(), task.getId(), task);
+        slotsById.put(task.getId(), slot);
+        slots.add(slot);
+
+        // Промежуток между соседями делится новым интервалом на две части
+        long left = leftBoundary(slot);
+        long right = rightBoundary(slot);
+        if (left < right) {
+            gaps.resize(left, slot.start);
+        }
+        gaps.add(slot.end, right);
+    }
+
+    void remove(int id) {
+        Slot slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        slots.remove(slot);
+
+        // Промежутки по обе стороны интервала сливаются в один; пустых промежутков в индексе нет
+        long left = leftBoundary(slot);
+        long right = rightBoundary(slot);
+        if (slot.end < right) {
+            gaps.remove(slot.end);
+        }
+        if (left < slot.start) {
+            gaps.resize(left, right);
+        } else {
+            gaps.add(left, right);
+        }
+    }
+
+    void clear() {
+        slots.clear();
+        slotsById.clear();
+        gaps.clear();
+        gaps.add(MIN_MINUTE, MAX_MINUTE);
+    }
+
+    // Заполняет индекс заново: интервалы сортируются один раз, в дерево вставляются без поиска соседей,
+    // а промежутки между ними собираются одним проходом
+    void rebuild(Collection<? extends Task> tasks) {
+        List<Slot> sorted = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task.hasStartTime()) {
+                sorted.add(new Slot(task.getStartMinute(), task.getEndMinute(), task.getId(), task));
+            }
+        }
+        sorted.sort(ORDER);
+
+        slots.clear();
+        slotsById.clear();
+        long[] gapStarts = new long[sorted.size() + 1];
+        long[] gapEnds = new long[sorted.size() + 1];
+        int gapCount = 0;
+        long coveredUntil = MIN_MINUTE;
+        for (Slot slot : sorted) {
+            slots.add(slot);
+            slotsById.put(slot.id, slot);
+            if (slot.start > coveredUntil) {
+                gapStarts[gapCount] = coveredUntil;
+                gapEnds[gapCount++] = slot.start;
+            }
+            coveredUntil = Math.max(coveredUntil, slot.end);
+        }
+        if (coveredUntil < MAX_MINUTE) {
+            gapStarts[gapCount] = coveredUntil;
+            gapEnds[gapCount++] = MAX_MINUTE;
+        }
+        gaps.rebuild(gapStarts, gapEnds, gapCount);
+    }
+
+    // Самое раннее начало не раньше from, с которого интервал длины duration ни с чем не пересекается,
+    // или Task.NO_TIME, если до конца расписания места нет
+    long earliestStart(long from, long duration) {
+        from = Math.max(from, MIN_MINUTE);
+        GapIndex.Gap gap = gaps.firstFit(from, duration);
+        return gap == null ? Task.NO_TIME : Math.max(gap.start, from);
+    }
+
+    // Свободные промежутки длиной не меньше duration внутри окна [from, to), обрезанные по окну
+    List<TimeSlot> freeSlots(long from, long to, long duration) {
+        List<TimeSlot> result = new ArrayList<>();
+        long position = Math.max(from, MIN_MINUTE);
+        to = Math.min(to, MAX_MINUTE);
+        while (true) {
+            GapIndex.Gap gap = gaps.firstFit(position, duration);
+            if (gap == null) {
+                break;
+            }
+            long start = Math.max(gap.start, position);
+            if (start + duration > to) {
+                break;
+            }
+            result.add(new TimeSlot(Task.toDateTime(start), Task.toDateTime(Math.min(gap.end, to))));
+            position = gap.end;
+        }
+        return result;
+    }
+
+    // Конец предыдущего интервала: интервалы не пересекаются, поэтому он же наибольший из концов слева
+    private long leftBoundary(Slot slot) {
+        Slot lower = slots.lower(slot);
+        return lower != null ? lower.end : MIN_MINUTE;
+    }
+
+    private long rightBoundary(Slot slot) {
+        Slot higher = slots.higher(slot);
+        return higher != null ? higher.start : MAX_MINUTE;
+    }
+}
@@ -1,89 +1,498 @@
 package tasks;
 
-import java.time.Duration;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import utils.EpochMinuteTypeAdapter;
+
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 public class Epic extends Task {
+    // Во время работы здесь SubtaskList; ArrayList бывает только у эпика, прочитанного Gson через рефлексию
     private List<Subtask> subtasks;
-    private LocalDateTime endTime;
+    @SerializedName("endTime")
+    @JsonAdapter(value = EpochMinuteTypeAdapter.class, nullSafe = false)
+    private long endMinute = NO_TIME;
+
+    // Агрегаты по подзадачам обновляются при каждом изменении за O(1)/O(log n) вместо полного пересчёта.
+    // Поля transient: Gson их не сериализует, а у десериализованного эпика они строятся заново по списку.
+    private transient Map<Integer, Contribution> contributions;
+    private transient int[] statusCounts;
+    private transient long totalDuration;
+    private transient TreeMap<Long, Integer> startTimes;
+    private transient TreeMap<Long, Integer> endTimes;
+
+    // Значения подзадачи, учтённые в агрегатах: сама подзадача могла с тех пор измениться через сеттеры
+    private static class Contribution {
+        final Subtask subtask;
+        final Status status;
+        final long duration;
+        final long startMinute;
+        final long endMinute;
+
+        Contribution(Subtask subtask) {
+            this.subtask = subtask;
+            this.status = subtask.getStatus();
+            this.duration = subtask.getDurationMinutes();
+            this.startMinute = subtask.getStartMinute();
+            this.endMinute = subtask.getEndMinute();
+        }
+    }
+
+    // Подзадачи в порядке добавления с доступом по id: замена и удаление одной подзадачи - O(1)
+    // без поиска по списку. Для Gson и вызывающих это обычный изменяемый List, как прежний ArrayList:
+    // изменения снаружи (через getSubtasks()) сбрасывают агрегаты эпика, и они строятся заново при следующем
+    // пересчёте. Подзадачи списка знают свой эпик (Subtask.owner) и при изменении меняют его версию
+    private static final class SubtaskList extends AbstractList<Subtask> {
+        private final Epic epic;
+        private final LinkedHashMap<Integer, Subtask> byId = new LinkedHashMap<>();
+
+        SubtaskList(Epic epic, Collection<Subtask> subtasks) {
+            this.epic = epic;
+            for (Subtask subtask : subtasks) {
+                if (byId.putIfAbsent(subtask.getId(), subtask) == null) {
+                    subtask.setOwner(epic);
+                }
+            }
+        }
+
+        // Для самого эпика: агрегаты он обновляет сам. Подзадача с тем же id заменяется на своём месте
+        void put(Subtask subtask) {
+            Subtask previous = byId.put(subtask.getId(), subtask);
+            if (previous != null && previous != subtask) {
+                release(previous);
+            }
+            subtask.setOwner(epic);
+        }
+
+        void removeById(int id) {
+            Subtask removed = byId.remove(id);
+            if (removed != null) {
+                release(removed);
+            }
+        }
+
+        @Override
+        public boolean add(Subtask subtask) {
+            put(subtask);
+            epic.subtasksChanged();
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Subtask)) {
+                return false;
+            }
+            Subtask subtask = byId.get(((Subtask) o).getId());
+            if (subtask == null || !subtask.equals(o)) {
+                return false;
+            }
+            removeById(subtask.getId());
+            epic.subtasksChanged();
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            for (Subtask subtask : byId.values()) {
+                release(subtask);
+            }
+            byId.clear();
+            epic.subtasksChanged();
+        }
+
+        // Операции по индексу редки, поэтому идут через копию списка
+        @Override
+        public void add(int index, Subtask subtask) {
+            List<Subtask> all = new ArrayList<>(byId.values());
+            all.add(index, subtask);
+            replaceWith(all);
+        }
+
+        @Override
+        public Subtask set(int index, Subtask subtask) {
+            List<Subtask> all = new ArrayList<>(byId.values());
+            Subtask previous = all.set(index, subtask);
+            replaceWith(all);
+            return previous;
+        }
+
+        @Override
+        public Subtask remove(int index) {
+            List<Subtask> all = new ArrayList<>(byId.values());
+            Subtask removed = all.remove(index);
+            replaceWith(all);
+            return removed;
+        }
+
+        private void replaceWith(List<Subtask> all) {
+            for (Subtask subtask : byId.values()) {
+                release(subtask);
+            }
+            byId.clear();
+            for (Subtask subtask : all) {
+                put(subtask);
+            }
+            epic.subtasksChanged();
+        }
+
+        // Объект мог уже перейти в другой эпик - тогда связь с ним не трогаем
+        private void release(Subtask subtask) {
+            if (subtask.getOwner() == epic) {
+                subtask.setOwner(null);
+            }
+        }
+
+        @Override
+        public int size() {
+            return byId.size();
+        }
+
+        @Override
+        public Iterator<Subtask> iterator() {
+            Iterator<Subtask> values = byId.values().iterator();
+            return new Iterator<>() {
+                private Subtask last;
+
+                @Override
+                public boolean hasNext() {
+                    return values.hasNext();
+                }
+
+                @Override
+                public Subtask next() {
+                    last = values.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    values.remove();
+                    release(last);
+                    epic.subtasksChanged();
+                }
+            };
+        }
+
+        // Доступ по индексу нужен редко (тесты, subList), поэтому идёт обходом
+        @Override
+        public Subtask get(int index) {
+            Objects.checkIndex(index, byId.size());
+            Iterator<Subtask> iterator = byId.values().iterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        // Обход по копии; изменения через итератор переносятся в список целиком
+        @Override
+        public ListIterator<Subtask> listIterator(int index) {
+            List<Subtask> all = new ArrayList<>(byId.values());
+            ListIterator<Subtask> iterator = all.listIterator(index);
+            return new ListIterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Subtask next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return iterator.hasPrevious();
+                }
+
+                @Override
+                public Subtask previous() {
+                    return iterator.previous();
+                }
+
+                @Override
+                public int nextIndex() {
+                    return iterator.nextIndex();
+                }
+
+                @Override
+                public int previousIndex() {
+                    return iterator.previousIndex();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    replaceWith(all);
+                }
+
+                @Override
+                public void set(Subtask subtask) {
+                    iterator.set(subtask);
+                    replaceWith(all);
+                }
+
+                @Override
+                public void add(Subtask subtask) {
+                    iterator.add(subtask);
+                    replaceWith(all);
+                }
+            };
+        }
+    }
 
     public Epic(String title, String description) {
         super(title, description);
-        this.subtasks = new ArrayList<>();
-        this.endTime = null;
+        this.subtasks = new SubtaskList(this, List.of());
+    }
+
+    public Epic(int id, String title, String description, Status status, long durationMinutes, long startMinute) {
+        super(id, title, description, status, durationMinutes, startMinute);
+        this.subtasks = new SubtaskList(this, List.of());
+    }
+
+    private Epic() {
+    }
+
+    // Подзадачи тоже копируются: список эпика и сами подзадачи меняются вместе с оригиналом
+    private Epic(Epic source, boolean withSubtasks) {
+        super(source);
+        List<Subtask> copies = new ArrayList<>(withSubtasks ? source.getSubtasks().size() : 0);
+        if (withSubtasks) {
+            for (Subtask subtask : source.subtasks) {
+                copies.add(subtask.copy());
+            }
+        } else {
+            detachCachedJson();
+        }
+        this.subtasks = new SubtaskList(this, copies);
+        this.endMinute = source.endMinute;
+    }
+
+    @Override
+    public Epic copy() {
+        return new Epic(this, true);
+    }
+
+    // Копия полей эпика и его агрегатов (статус, время) без подзадач: O(1) независимо от их числа
+    public Epic copyWithoutSubtasks() {
+        return new Epic(this, false);
     }
 
     public List<Subtask> getSubtasks() {
-        if (subtasks == null) {
-            subtasks = new ArrayList<>();
+        return subtaskList();
+    }
+
+    private SubtaskList subtaskList() {
+        if (!(subtasks instanceof SubtaskList)) {
+            subtasks = new SubtaskList(this, subtasks != null ? subtasks : List.of());
         }
-        return subtasks;
+        return (SubtaskList) subtasks;
     }
 
     public void addSubtask(Subtask subtask) {
-        getSubtasks().add(subtask);
-        updateTimeAndDuration();
+        ensureAggregates();
+        if (contributions.containsKey(subtask.getId())) {
+            updateSubtask(subtask);
+            return;
+        }
+        subtaskList().put(subtask);
+        include(subtask);
+        applyAggregates();
     }
 
-    public void removeSubtask(Subtask subtask) {
-        getSubtasks().remove(subtask);
-        updateTimeAndDuration();
+    public void updateSubtask(Subtask subtask) {
+        ensureAggregates();
+        Contribution previous = contributions.get(subtask.getId());
+        if (previous == null) {
+            addSubtask(subtask);
+            return;
+        }
+        exclude(previous);
+        include(subtask);
+        // Обновлённая версия могла прийти отдельным объектом (например, из HTTP-запроса)
+        if (previous.subtask != subtask) {
+            subtaskList().put(subtask);
+        }
+        applyAggregates();
     }
 
-    public void updateStatus() {
-        if (subtasks.isEmpty()) {
-            setStatus(Status.NEW);
+    public void removeSubtask(Subtask subtask) {
+        ensureAggregates();
+        Contribution previous = contributions.remove(subtask.getId());
+        if (previous == null) {
             return;
         }
+        subtaskList().removeById(subtask.getId());
+        exclude(previous);
+        applyAggregates();
+    }
+
+    // Пакетные изменения: список подзадач обходится не больше одного раза, статус и время пересчитываются один раз
+    public void addSubtasks(Collection<Subtask> added) {
+        updateSubtasks(added);
+    }
 
-        boolean allNew = subtasks.stream().allMatch(s -> s.getStatus() == Status.NEW);
-        boolean allDone = subtasks.stream().allMatch(s -> s.getStatus() == Status.DONE);
+    public void updateSubtasks(Collection<Subtask> updated) {
+        ensureAggregates();
+        SubtaskList list = subtaskList();
+        for (Subtask subtask : updated) {
+            Contribution previous = contributions.get(subtask.getId());
+            if (previous != null) {
+                exclude(previous);
+            }
+            if (previous == null || previous.subtask != subtask) {
+                list.put(subtask);
+            }
+            include(subtask);
+        }
+        applyAggregates();
+    }
 
-        if (allNew) {
+    public void removeSubtasks(Collection<Subtask> removed) {
+        ensureAggregates();
+        SubtaskList list = subtaskList();
+        boolean changed = false;
+        for (Subtask subtask : removed) {
+            Contribution previous = contributions.remove(subtask.getId());
+            if (previous != null) {
+                exclude(previous);
+                list.removeById(subtask.getId());
+                changed = true;
+            }
+        }
+        if (changed) {
+            applyAggregates();
+        }
+    }
+
+    public void clearSubtasks() {
+        subtaskList().clear();
+        contributions = null;
+        ensureAggregates();
+        applyAggregates();
+    }
+
+    // Прямой вызов пересчитывает по текущему состоянию подзадач, как и раньше: они могли измениться
+    // через сеттеры после того, как эпик их учёл. Сам эпик при изменениях обновляет агрегаты по разнице
+    public void updateStatus() {
+        contributions = null;
+        ensureAggregates();
+        applyStatus();
+    }
+
+    public void updateTimeAndDuration() {
+        contributions = null;
+        ensureAggregates();
+        applyTimeAndDuration();
+    }
+
+    // Список изменили снаружи: агрегаты строятся заново при следующем обращении
+    private void subtasksChanged() {
+        contributions = null;
+        markModified();
+    }
+
+    private void applyStatus() {
+        int size = contributions.size();
+        if (size == 0 || statusCounts[Status.NEW.ordinal()] == size) {
             setStatus(Status.NEW);
-        } else if (allDone) {
+        } else if (statusCounts[Status.DONE.ordinal()] == size) {
             setStatus(Status.DONE);
         } else {
             setStatus(Status.IN_PROGRESS);
         }
     }
 
-    public void updateTimeAndDuration() {
-        if (subtasks.isEmpty()) {
-            setDuration(Duration.ZERO);
-            setStartTime(null);
-            endTime = null;
+    private void applyTimeAndDuration() {
+        if (contributions.isEmpty()) {
+            setDurationMinutes(0);
+            setStartMinute(NO_TIME);
+            endMinute = NO_TIME;
+            markModified();
             return;
         }
 
-        Duration totalDuration = Duration.ZERO;
-        LocalDateTime earliestStart = null;
-        LocalDateTime latestEnd = null;
+        setDurationMinutes(totalDuration);
+        setStartMinute(startTimes.isEmpty() ? NO_TIME : startTimes.firstKey());
+        this.endMinute = endTimes.isEmpty() ? NO_TIME : endTimes.lastKey();
+        markModified();
+    }
 
-        for (Subtask subtask : subtasks) {
-            if (subtask.getStartTime() != null) {
-                if (earliestStart == null || subtask.getStartTime().isBefore(earliestStart)) {
-                    earliestStart = subtask.getStartTime();
-                }
-            }
-            if (subtask.getEndTime() != null) {
-                if (latestEnd == null || subtask.getEndTime().isAfter(latestEnd)) {
-                    latestEnd = subtask.getEndTime();
-                }
-            }
-            totalDuration = totalDuration.plus(subtask.getDuration());
+    // Состав подзадач изменился: вложенный в JSON эпика список тоже, даже если агрегаты остались прежними
+    private void applyAggregates() {
+        applyStatus();
+        applyTimeAndDuration();
+        markModified();
+    }
+
+    private void ensureAggregates() {
+        if (contributions != null) {
+            return;
+        }
+        SubtaskList list = subtaskList();
+        contributions = new HashMap<>();
+        statusCounts = new int[Status.values().length];
+        totalDuration = 0;
+        startTimes = new TreeMap<>();
+        endTimes = new TreeMap<>();
+        for (Subtask subtask : list) {
+            include(subtask);
         }
+    }
 
-        setDuration(totalDuration);
-        setStartTime(earliestStart);
-        this.endTime = latestEnd;
+    private void include(Subtask subtask) {
+        Contribution contribution = new Contribution(subtask);
+        contributions.put(subtask.getId(), contribution);
+        if (contribution.status != null) {
+            statusCounts[contribution.status.ordinal()]++;
+        }
+        totalDuration += contribution.duration;
+        if (contribution.startMinute != NO_TIME) {
+            startTimes.merge(contribution.startMinute, 1, Integer::sum);
+        }
+        if (contribution.endMinute != NO_TIME) {
+            endTimes.merge(contribution.endMinute, 1, Integer::sum);
+        }
+    }
+
+    private void exclude(Contribution contribution) {
+        if (contribution.status != null) {
+            statusCounts[contribution.status.ordinal()]--;
+        }
+        totalDuration -= contribution.duration;
+        if (contribution.startMinute != NO_TIME) {
+            decrement(startTimes, contribution.startMinute);
+        }
+        if (contribution.endMinute != NO_TIME) {
+            decrement(endTimes, contribution.endMinute);
+        }
+    }
+
+    private static void decrement(TreeMap<Long, Integer> counts, long key) {
+        counts.computeIfPresent(key, (time, count) -> count == 1 ? null : count - 1);
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        return endTime;
+        return toDateTime(endMinute);
+    }
+
+    @Override
+    public long getEndMinute() {
+        return endMinute;
     }
 
     @Override
@@ -98,9 +507,9 @@ public class Epic extends Task {
                 ", title='" + getTitle() + '\'' +
                 ", description='" + getDescription() + '\'' +
                 ", status=" + getStatus() +
-                ", duration=" + getDuration().toMinutes() + " min" +
+                ", duration=" + getDurationMinutes() + " min" +
                 ", startTime=" + getStartTime() +
-                ", endTime=" + endTime +
+                ", endTime=" + getEndTime() +
                 ", subtasks=" + (subtasks != null ? subtasks.size() : 0) +
                 '}';
     }
@@ -2,18 +2,58 @@ package tasks;
 
 public class Subtask extends Task {
     private int epicId;
+    // Эпик, в списке которого лежит этот объект. Подзадачи входят в JSON эпика, поэтому любое изменение
+    // подзадачи (даже прямым вызовом сеттера) меняет и версию эпика - проверка его кэша остаётся O(1)
+    private transient volatile Epic owner;
 
     public Subtask(String title, String description, int epicId) {
         super(title, description);
         this.epicId = epicId;
     }
 
+    public Subtask(int id, String title, String description, Status status, long durationMinutes, long startMinute,
+                   int epicId) {
+        super(id, title, description, status, durationMinutes, startMinute);
+        this.epicId = epicId;
+    }
+
+    private Subtask() {
+    }
+
+    private Subtask(Subtask source) {
+        super(source);
+        this.epicId = source.epicId;
+    }
+
+    @Override
+    public Subtask copy() {
+        return new Subtask(this);
+    }
+
     public int getEpicId() {
         return epicId;
     }
 
     public void setEpicId(int epicId) {
         this.epicId = epicId;
+        markModified();
+    }
+
+    Epic getOwner() {
+        return owner;
+    }
+
+    void setOwner(Epic owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    protected void markModified() {
+        super.markModified();
+        Epic epic = owner;
+        if (epic != null) {
+            epic.markModified();
+        }
     }
 
     @Override
@@ -28,7 +68,7 @@ public class Subtask extends Task {
                 ", title='" + getTitle() + '\'' +
                 ", description='" + getDescription() + '\'' +
                 ", status=" + getStatus() +
-                ", duration=" + getDuration().toMinutes() + " min" +
+                ", duration=" + getDurationMinutes() + " min" +
                 ", startTime=" + getStartTime() +
                 ", epicId=" + epicId +
                 '}';
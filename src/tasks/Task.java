@@ -1,21 +1,103 @@
 package tasks;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import utils.EpochMinuteTypeAdapter;
+import utils.MinutesTypeAdapter;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Task {
+    // Значение startMinute для задачи без времени
+    public static final long NO_TIME = Long.MIN_VALUE;
+
     private int id;
     private String title;
     private String description;
     private Status status;
-    private Duration duration;
-    private LocalDateTime startTime;
+    // Длительность и начало хранятся в минутах, чтобы проверки пересечений и сортировка обходились
+    // без LocalDateTime; в JSON поля сохраняют прежние имена и форматы
+    @SerializedName("duration")
+    @JsonAdapter(value = MinutesTypeAdapter.class, nullSafe = false)
+    private long durationMinutes;
+    @SerializedName("startTime")
+    @JsonAdapter(value = EpochMinuteTypeAdapter.class, nullSafe = false)
+    private long startMinute = NO_TIME;
+    // Версии берутся из общего счётчика, поэтому номер новой версии не совпадёт ни с одним прежним
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    // Номер версии меняется при каждом изменении; сериализованный JSON кэшируется вместе с версией,
+    // для которой построен, и после изменения считается устаревшим (строится заново при следующем чтении)
+    private transient volatile long version;
+    private transient volatile CachedJson cachedJson;
+    // Для копии: оригинал, которому передаётся построенный JSON; связь рвётся при изменении копии
+    private transient volatile Task source;
+
+    // Поля final: пару можно безопасно прочитать из другого потока без синхронизации
+    private static final class CachedJson {
+        final long version;
+        final byte[] bytes;
+
+        CachedJson(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
 
     public Task(String title, String description) {
         this.title = title;
         this.description = description;
         this.status = Status.NEW;
-        this.duration = Duration.ZERO;
+    }
+
+    // Все поля сразу и без новой версии из общего счётчика: так задачи создаются при загрузке снимка,
+    // в том числе из нескольких потоков
+    public Task(int id, String title, String description, Status status, long durationMinutes, long startMinute) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.durationMinutes = durationMinutes;
+        this.startMinute = startMinute;
+    }
+
+    // Для Gson: без этого конструктора объект создаётся в обход инициализаторов полей
+    protected Task() {
+    }
+
+    protected Task(Task source) {
+        this.id = source.id;
+        this.title = source.title;
+        this.description = source.description;
+        this.status = source.status;
+        this.durationMinutes = source.durationMinutes;
+        this.startMinute = source.startMinute;
+        this.version = source.version;
+        this.cachedJson = source.cachedJson;
+        this.source = source;
+    }
+
+    // Копия текущего состояния с той же версией и кэшем JSON: её можно сериализовать без блокировки,
+    // пока оригинал меняется
+    public Task copy() {
+        return new Task(this);
+    }
+
+    // Для копии, JSON которой отличается от JSON оригинала: кэш и связь с оригиналом не переносятся
+    protected void detachCachedJson() {
+        cachedJson = null;
+        source = null;
+    }
+
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static LocalDateTime toDateTime(long epochMinute) {
+        return epochMinute == NO_TIME ? null : LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
     }
 
     public int getId() {
@@ -35,39 +117,99 @@ public class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return Duration.ofMinutes(durationMinutes);
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return toDateTime(startMinute);
     }
 
     public LocalDateTime getEndTime() {
-        return (startTime != null) ? startTime.plus(duration) : null;
+        return toDateTime(getEndMinute());
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public boolean hasStartTime() {
+        return startMinute != NO_TIME;
+    }
+
+    // Минута начала от эпохи или NO_TIME
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    // Минута окончания от эпохи или NO_TIME
+    public long getEndMinute() {
+        return startMinute == NO_TIME ? NO_TIME : startMinute + durationMinutes;
     }
 
     public void setId(int id) {
         this.id = id;
+        markModified();
     }
 
     public void setTitle(String title) {
         this.title = title;
+        markModified();
     }
 
     public void setDescription(String description) {
         this.description = description;
+        markModified();
     }
 
     public void setStatus(Status status) {
         this.status = status;
+        markModified();
     }
 
+    // Длительность хранится с точностью до минуты, null - нулевая длительность
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        this.durationMinutes = duration != null ? duration.toMinutes() : 0;
+        markModified();
     }
 
+    // Время хранится с точностью до минуты, секунды отбрасываются
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        this.startMinute = startTime != null ? toEpochMinute(startTime) : NO_TIME;
+        markModified();
+    }
+
+    public void setDurationMinutes(long durationMinutes) {
+        this.durationMinutes = durationMinutes;
+        markModified();
+    }
+
+    public void setStartMinute(long startMinute) {
+        this.startMinute = startMinute;
+        markModified();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    protected void markModified() {
+        version = VERSIONS.incrementAndGet();
+        source = null;
+    }
+
+    // JSON текущей версии или null, если его ещё нет или задача с тех пор менялась
+    public byte[] getCachedJson() {
+        CachedJson cached = cachedJson;
+        return cached != null && cached.version == getVersion() ? cached.bytes : null;
+    }
+
+    // version - версия, прочитанная до сериализации: если задача успела измениться, запись сразу устареет
+    public void setCachedJson(byte[] bytes, long version) {
+        cachedJson = new CachedJson(version, bytes);
+        Task original = source;
+        if (original != null) {
+            original.setCachedJson(bytes, version);
+        }
     }
 
     public TaskType getType() {
@@ -96,8 +238,8 @@ public class Task {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
-                ", duration=" + duration.toMinutes() + " min" +
-                ", startTime=" + startTime +
+                ", duration=" + durationMinutes + " min" +
+                ", startTime=" + getStartTime() +
                 '}';
     }
 }
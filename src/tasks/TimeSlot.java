@@ -0,0 +1,44 @@
+package tasks;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Свободный промежуток расписания [start, end)
+public class TimeSlot {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public TimeSlot(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TimeSlot slot = (TimeSlot) o;
+        return Objects.equals(start, slot.start) && Objects.equals(end, slot.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSlot{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
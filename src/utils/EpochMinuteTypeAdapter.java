@@ -0,0 +1,25 @@
+package utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import tasks.Task;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+// Время задачи хранится минутами от эпохи, а в JSON остаётся строкой ISO-8601, как у LocalDateTimeTypeAdapter
+public class EpochMinuteTypeAdapter extends TypeAdapter<Long> {
+    private final LocalDateTimeTypeAdapter dateTimeAdapter = new LocalDateTimeTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Long minute) throws IOException {
+        dateTimeAdapter.write(out, minute == null ? null : Task.toDateTime(minute));
+    }
+
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        LocalDateTime dateTime = dateTimeAdapter.read(in);
+        return dateTime == null ? Task.NO_TIME : Task.toEpochMinute(dateTime);
+    }
+}
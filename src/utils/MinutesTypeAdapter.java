@@ -0,0 +1,28 @@
+package utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Длительность задачи хранится в минутах; читаются те же форматы, что и у DurationTypeAdapter
+public class MinutesTypeAdapter extends TypeAdapter<Long> {
+    private final DurationTypeAdapter durationAdapter = new DurationTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Long minutes) throws IOException {
+        if (minutes == null) {
+            out.nullValue();
+        } else {
+            out.value(minutes.longValue());
+        }
+    }
+
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        Duration duration = durationAdapter.read(in);
+        return duration == null ? 0L : duration.toMinutes();
+    }
+}
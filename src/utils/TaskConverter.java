@@ -2,56 +2,59 @@ package utils;
 
 import tasks.*;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+// Строка CSV: id,type,name,status,description,duration,startTime[,epic].
+// Поля с запятой, кавычкой или переводом строки берутся в кавычки, кавычка внутри удваивается.
+// Запись и разбор идут напрямую через StringBuilder и смещения в строке, без String.format и split.
 public class TaskConverter {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DATE_TIME_LENGTH = 16;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Дней от 0000-03-01 до 1970-01-01 и в 400-летнем цикле григорианского календаря
+    private static final long DAYS_0000_TO_1970 = 719_468;
+    private static final long DAYS_PER_CYCLE = 146_097;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
 
     public static String toString(Task task) {
-        String startTime = (task.getStartTime() != null) ? task.getStartTime().format(FORMATTER) : "";
-        String duration = String.valueOf(task.getDuration().toMinutes());
+        StringBuilder builder = new StringBuilder(96);
+        appendTo(task, builder);
+        return builder.toString();
+    }
 
+    public static void appendTo(Task task, StringBuilder out) {
+        out.append(task.getId()).append(',')
+                .append(task.getType().name()).append(',');
+        appendField(task.getTitle(), out);
+        out.append(',').append(task.getStatus()).append(',');
+        appendField(task.getDescription(), out);
+        out.append(',').append(task.getDurationMinutes()).append(',');
+        if (task.hasStartTime()) {
+            appendDateTime(task.getStartMinute(), out);
+        }
         if (task.getType() == TaskType.SUBTASK) {
-            Subtask subtask = (Subtask) task;
-            return String.format("%d,%s,%s,%s,%s,%s,%s,%d",
-                    subtask.getId(),
-                    subtask.getType(),
-                    subtask.getTitle(),
-                    subtask.getStatus(),
-                    subtask.getDescription(),
-                    duration,
-                    startTime,
-                    subtask.getEpicId()
-            );
-        } else {
-            return String.format("%d,%s,%s,%s,%s,%s,%s",
-                    task.getId(),
-                    task.getType(),
-                    task.getTitle(),
-                    task.getStatus(),
-                    task.getDescription(),
-                    duration,
-                    startTime
-            );
+            out.append(',').append(((Subtask) task).getEpicId());
         }
     }
 
-    public static Task fromString(String line) {
-        String[] parts = line.split(",", -1); // для сохранения пустых значений
+    public static Task fromString(CharSequence line) {
+        return fromString(line, 0, line.length());
+    }
 
-        if (parts.length < 7) {
-            throw new IllegalArgumentException("Некорректный формат строки (мало данных): " + line);
-        }
+    // Разбирает запись line[start, end) без выделения промежуточных подстрок
+    public static Task fromString(CharSequence line, int start, int end) {
+        FieldReader reader = new FieldReader(line, start, end);
 
-        int id = Integer.parseInt(parts[0]);
-        TaskType type = TaskType.valueOf(parts[1]);
-        String name = parts[2];
-        Status status = Status.valueOf(parts[3]);
-        String description = parts[4];
-        Duration duration = Duration.ofMinutes(Long.parseLong(parts[5]));
-        LocalDateTime startTime = parts[6].isEmpty() ? null : LocalDateTime.parse(parts[6], FORMATTER);
+        int id = reader.nextInt();
+        TaskType type = reader.nextEnum(TYPES);
+        String name = reader.nextString();
+        Status status = reader.nextEnum(STATUSES);
+        String description = reader.nextString();
+        long duration = reader.nextLong();
+        long startMinute = reader.nextEpochMinute();
         Task task;
 
         switch (type) {
@@ -62,10 +65,10 @@ public class TaskConverter {
                 task = new Epic(name, description);
                 break;
             case SUBTASK:
-                if (parts.length < 8 || parts[7].isEmpty()) {
-                    throw new IllegalArgumentException("Некорректный формат строки для Subtask: " + line);
+                if (!reader.hasNext() || reader.nextIsEmpty()) {
+                    throw new IllegalArgumentException("Некорректный формат строки для Subtask: " + reader.line());
                 }
-                int epicId = Integer.parseInt(parts[7]);
+                int epicId = reader.nextInt();
                 task = new Subtask(name, description, epicId);
                 break;
             default:
@@ -73,8 +76,280 @@ public class TaskConverter {
         }
         task.setId(id);
         task.setStatus(status);
-        task.setDuration(duration);
-        task.setStartTime(startTime);
+        task.setDurationMinutes(duration);
+        task.setStartMinute(startMinute);
         return task;
     }
+
+    // Индекс перевода строки, завершающего запись с позиции from (переводы внутри кавычек не считаются), или -1
+    public static int recordEnd(CharSequence content, int from) {
+        boolean quoted = false;
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendField(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Дата пишется прямо из минут от эпохи, без LocalDateTime (алгоритм civil_from_days)
+    private static void appendDateTime(long epochMinute, StringBuilder out) {
+        long epochDay = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+        int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        long days = epochDay + DAYS_0000_TO_1970;
+        long cycle = Math.floorDiv(days, DAYS_PER_CYCLE);
+        int dayOfCycle = (int) (days - cycle * DAYS_PER_CYCLE);
+        int yearOfCycle = (dayOfCycle - dayOfCycle / 1460 + dayOfCycle / 36524 - dayOfCycle / 146096) / 365;
+        int dayOfYear = dayOfCycle - (365 * yearOfCycle + yearOfCycle / 4 - yearOfCycle / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfCycle + cycle * 400 + (month <= 2 ? 1 : 0);
+
+        appendPadded((int) year, 4, out);
+        out.append('-');
+        appendPadded(month, 2, out);
+        out.append('-');
+        appendPadded(day, 2, out);
+        out.append(' ');
+        appendPadded(minuteOfDay / 60, 2, out);
+        out.append(':');
+        appendPadded(minuteOfDay % 60, 2, out);
+    }
+
+    // Номер дня от эпохи для проверенной даты (алгоритм days_from_civil)
+    private static long epochDay(int year, int month, int day) {
+        int shiftedYear = month <= 2 ? year - 1 : year;
+        int cycle = Math.floorDiv(shiftedYear, 400);
+        int yearOfCycle = shiftedYear - cycle * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfCycle = yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear;
+        return cycle * DAYS_PER_CYCLE + dayOfCycle - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static void appendPadded(int value, int width, StringBuilder out) {
+        if (value < 0) {
+            out.append(value);
+            return;
+        }
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+
+    // Последовательно читает поля записи, сдвигая позицию за очередную запятую
+    private static class FieldReader {
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+        private int position;
+        private boolean exhausted;
+
+        FieldReader(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            // Запись могла быть сохранена в Windows с \r\n
+            this.end = end > start && source.charAt(end - 1) == '\r' ? end - 1 : end;
+            this.position = start;
+        }
+
+        boolean hasNext() {
+            return !exhausted;
+        }
+
+        boolean nextIsEmpty() {
+            return position == end || source.charAt(position) == ',';
+        }
+
+        int nextInt() {
+            int fieldEnd = fieldEnd();
+            try {
+                return Integer.parseInt(source, position, fieldEnd, 10);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное число в строке: " + line(), e);
+            } finally {
+                advance(fieldEnd);
+            }
+        }
+
+        long nextLong() {
+            int fieldEnd = fieldEnd();
+            try {
+                return Long.parseLong(source, position, fieldEnd, 10);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное число в строке: " + line(), e);
+            } finally {
+                advance(fieldEnd);
+            }
+        }
+
+        <E extends Enum<E>> E nextEnum(E[] values) {
+            int fieldEnd = fieldEnd();
+            for (E value : values) {
+                if (matches(value.name(), fieldEnd)) {
+                    advance(fieldEnd);
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестное значение " + source.subSequence(position, fieldEnd)
+                    + " в строке: " + line());
+        }
+
+        String nextString() {
+            if (position < end && source.charAt(position) == '"') {
+                return nextQuoted();
+            }
+            int fieldEnd = fieldEnd();
+            String value = source.subSequence(position, fieldEnd).toString();
+            advance(fieldEnd);
+            return value;
+        }
+
+        // Минута начала от эпохи или Task.NO_TIME для пустого поля
+        long nextEpochMinute() {
+            int fieldEnd = fieldEnd();
+            long value;
+            if (fieldEnd == position) {
+                value = Task.NO_TIME;
+            } else if (fieldEnd - position == DATE_TIME_LENGTH && isDateTime(position)) {
+                int year = digits(position, 4);
+                int month = digits(position + 5, 2);
+                int day = digits(position + 8, 2);
+                int hour = digits(position + 11, 2);
+                int minute = digits(position + 14, 2);
+                if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour > 23
+                        || minute > 59) {
+                    throw new IllegalArgumentException("Некорректная дата в строке: " + line());
+                }
+                value = epochDay(year, month, day) * MINUTES_PER_DAY + hour * 60 + minute;
+            } else {
+                value = Task.toEpochMinute(LocalDateTime.parse(source.subSequence(position, fieldEnd), FORMATTER));
+            }
+            advance(fieldEnd);
+            return value;
+        }
+
+        String line() {
+            return source.subSequence(start, end).toString();
+        }
+
+        private String nextQuoted() {
+            StringBuilder value = new StringBuilder();
+            int i = position + 1;
+            while (true) {
+                if (i >= end) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в строке: " + line());
+                }
+                char c = source.charAt(i++);
+                if (c == '"') {
+                    if (i < end && source.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            if (i < end && source.charAt(i) != ',') {
+                throw new IllegalArgumentException("Лишние символы после кавычки в строке: " + line());
+            }
+            advance(i);
+            return value.toString();
+        }
+
+        private int fieldEnd() {
+            if (exhausted) {
+                throw new IllegalArgumentException("Некорректный формат строки (мало данных): " + line());
+            }
+            int i = position;
+            while (i < end && source.charAt(i) != ',') {
+                i++;
+            }
+            return i;
+        }
+
+        private void advance(int fieldEnd) {
+            if (fieldEnd >= end) {
+                position = end;
+                exhausted = true;
+            } else {
+                position = fieldEnd + 1;
+            }
+        }
+
+        private boolean matches(String name, int fieldEnd) {
+            if (fieldEnd - position != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (source.charAt(position + i) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isDateTime(int from) {
+            return source.charAt(from + 4) == '-' && source.charAt(from + 7) == '-'
+                    && source.charAt(from + 10) == ' ' && source.charAt(from + 13) == ':';
+        }
+
+        private int digits(int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                char c = source.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new IllegalArgumentException("Некорректная дата в строке: " + line());
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
 }
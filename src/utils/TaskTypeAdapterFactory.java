@@ -0,0 +1,316 @@
+package utils;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Потоковые адаптеры для Task, Epic и Subtask без рефлексии и промежуточного JsonElement.
+// Поля пишутся в том же порядке и формате, что и у рефлексивного адаптера Gson (поля подкласса первыми,
+// null и отсутствующее время пропускаются), поэтому ответы не меняются побайтно.
+// Эпик пишет вложенные подзадачи, список их id ("subtaskIds":[...]) или только свои поля.
+public class TaskTypeAdapterFactory implements TypeAdapterFactory {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final Status[] STATUSES = Status.values();
+
+    public enum SubtaskFormat {
+        NESTED,
+        IDS,
+        NONE
+    }
+
+    private final SubtaskFormat subtaskFormat;
+
+    public TaskTypeAdapterFactory() {
+        this(SubtaskFormat.NESTED);
+    }
+
+    public TaskTypeAdapterFactory(boolean subtaskIdsOnly) {
+        this(subtaskIdsOnly ? SubtaskFormat.IDS : SubtaskFormat.NESTED);
+    }
+
+    public TaskTypeAdapterFactory(SubtaskFormat subtaskFormat) {
+        this.subtaskFormat = subtaskFormat;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType != Task.class && rawType != Epic.class && rawType != Subtask.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new TaskAdapter(rawType).nullSafe();
+    }
+
+    private class TaskAdapter extends TypeAdapter<Task> {
+        private final Class<?> targetType;
+
+        TaskAdapter(Class<?> targetType) {
+            this.targetType = targetType;
+        }
+
+        // Тип берётся из самого объекта: в List<Task> эпики и подзадачи пишутся со своими полями
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            switch (task.getType()) {
+                case SUBTASK:
+                    out.name("epicId").value(((Subtask) task).getEpicId());
+                    break;
+                case EPIC:
+                    writeEpicFields(out, (Epic) task);
+                    break;
+                default:
+                    break;
+            }
+            writeTaskFields(out, task);
+            out.endObject();
+        }
+
+        private void writeEpicFields(JsonWriter out, Epic epic) throws IOException {
+            if (subtaskFormat == SubtaskFormat.IDS) {
+                out.name("subtaskIds").beginArray();
+                for (Subtask subtask : epic.getSubtasks()) {
+                    out.value(subtask.getId());
+                }
+                out.endArray();
+            } else if (subtaskFormat == SubtaskFormat.NESTED) {
+                out.name("subtasks").beginArray();
+                for (Subtask subtask : epic.getSubtasks()) {
+                    out.beginObject();
+                    out.name("epicId").value(subtask.getEpicId());
+                    writeTaskFields(out, subtask);
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            if (epic.getEndMinute() != Task.NO_TIME) {
+                out.name("endTime");
+                writeMinute(out, epic.getEndMinute());
+            }
+        }
+
+        private void writeTaskFields(JsonWriter out, Task task) throws IOException {
+            out.name("id").value(task.getId());
+            if (task.getTitle() != null) {
+                out.name("title").value(task.getTitle());
+            }
+            if (task.getDescription() != null) {
+                out.name("description").value(task.getDescription());
+            }
+            if (task.getStatus() != null) {
+                out.name("status").value(task.getStatus().name());
+            }
+            out.name("duration").value(task.getDurationMinutes());
+            if (task.hasStartTime()) {
+                out.name("startTime");
+                writeMinute(out, task.getStartMinute());
+            }
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            int id = 0;
+            String title = null;
+            String description = null;
+            Status status = null;
+            long duration = 0;
+            long startMinute = Task.NO_TIME;
+            int epicId = 0;
+            List<Subtask> subtasks = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL && !"duration".equals(name) && !"startTime".equals(name)) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = in.nextInt();
+                        break;
+                    case "title":
+                        title = in.nextString();
+                        break;
+                    case "description":
+                        description = in.nextString();
+                        break;
+                    case "status":
+                        status = readStatus(in);
+                        break;
+                    case "duration":
+                        duration = readDuration(in);
+                        break;
+                    case "startTime":
+                        startMinute = readMinute(in);
+                        break;
+                    case "epicId":
+                        epicId = in.nextInt();
+                        break;
+                    case "subtasks":
+                        subtasks = targetType == Epic.class ? readSubtasks(in) : skip(in);
+                        break;
+                    default:
+                        // endTime эпика вычисляется по подзадачам, subtaskIds и неизвестные поля пропускаются
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            Task task;
+            if (targetType == Epic.class) {
+                Epic epic = new Epic(title, description);
+                if (subtasks != null) {
+                    epic.addSubtasks(subtasks);
+                }
+                task = epic;
+            } else if (targetType == Subtask.class) {
+                task = new Subtask(title, description, epicId);
+            } else {
+                task = new Task(title, description);
+            }
+            task.setId(id);
+            task.setStatus(status);
+            // У эпика с подзадачами время уже вычислено addSubtasks, у пустого остаётся переданное
+            if (subtasks == null || subtasks.isEmpty()) {
+                task.setDurationMinutes(duration);
+                task.setStartMinute(startMinute);
+            }
+            return task;
+        }
+
+        private List<Subtask> readSubtasks(JsonReader in) throws IOException {
+            List<Subtask> subtasks = new ArrayList<>();
+            TaskAdapter subtaskAdapter = new TaskAdapter(Subtask.class);
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else {
+                    subtasks.add((Subtask) subtaskAdapter.read(in));
+                }
+            }
+            in.endArray();
+            return subtasks;
+        }
+
+        private List<Subtask> skip(JsonReader in) throws IOException {
+            in.skipValue();
+            return null;
+        }
+    }
+
+    private static Status readStatus(JsonReader in) throws IOException {
+        String name = in.nextString();
+        for (Status status : STATUSES) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        // Как и рефлексивный адаптер перечислений: неизвестное значение читается как null
+        return null;
+    }
+
+    // Число минут или строка ISO-8601, как в DurationTypeAdapter
+    private static long readDuration(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        if (token == JsonToken.NUMBER) {
+            return in.nextLong();
+        }
+        if (token == JsonToken.STRING) {
+            return Duration.parse(in.nextString()).toMinutes();
+        }
+        throw new IllegalArgumentException("Неверный формат для Duration: ожидается число (минуты) " +
+                "или строка (ISO-8601)");
+    }
+
+    private static long readMinute(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return Task.NO_TIME;
+        }
+        String value = in.nextString();
+        if (value.isEmpty()) {
+            return Task.NO_TIME;
+        }
+        // Обычная форма yyyy-MM-ddTHH:mm[:ss] разбирается вручную, остальные - форматтером
+        if ((value.length() == 16 || value.length() == 19 && value.charAt(16) == ':') && value.charAt(4) == '-'
+                && value.charAt(7) == '-' && value.charAt(10) == 'T' && value.charAt(13) == ':') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 2);
+            int day = digits(value, 8, 2);
+            int hour = digits(value, 11, 2);
+            int minute = digits(value, 14, 2);
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0
+                    && (value.length() == 16 || digits(value, 17, 2) >= 0)) {
+                return Task.toEpochMinute(LocalDateTime.of(year, month, day, hour, minute));
+            }
+        }
+        return Task.toEpochMinute(LocalDateTime.parse(value, FORMATTER));
+    }
+
+    // Число из count цифр или -1, если встретился другой символ
+    private static int digits(String value, int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    // Та же строка, что даёт ISO_LOCAL_DATE_TIME для времени с точностью до минуты, но без форматтера
+    private static void writeMinute(JsonWriter out, long epochMinute) throws IOException {
+        LocalDateTime time = Task.toDateTime(epochMinute);
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            out.value(time.format(FORMATTER));
+            return;
+        }
+        char[] chars = new char[19];
+        putDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        putDigits(chars, 5, time.getMonthValue(), 2);
+        chars[7] = '-';
+        putDigits(chars, 8, time.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        putDigits(chars, 11, time.getHour(), 2);
+        chars[13] = ':';
+        putDigits(chars, 14, time.getMinute(), 2);
+        chars[16] = ':';
+        chars[17] = '0';
+        chars[18] = '0';
+        out.value(new String(chars));
+    }
+
+    private static void putDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
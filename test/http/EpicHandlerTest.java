@@ -2,12 +2,15 @@ package http;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import managers.InMemoryTaskManager;
 import managers.NotFoundException;
 import managers.TaskManager;
 import org.junit.jupiter.api.*;
 import tasks.Epic;
+import tasks.Subtask;
 import utils.DurationTypeAdapter;
 import utils.LocalDateTimeTypeAdapter;
 
@@ -152,4 +155,31 @@ public class EpicHandlerTest {
         assertThrows(NotFoundException.class, () -> manager.getEpicById(epic.getId()), "Эпик должен быть" +
                 " удален");
     }
+
+    @Test
+    void shouldReturnSubtaskIdsOnlyWhenRequested() throws IOException, InterruptedException {
+        Epic epic = new Epic("Test Epic", "Epic Description");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        manager.createSubtask(subtask);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics/" + epic.getId() + "?subtasks=ids"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertFalse(body.has("subtasks"), "Вложенные подзадачи не должны передаваться");
+        assertEquals(subtask.getId(), body.getAsJsonArray("subtaskIds").get(0).getAsInt(),
+                "Должен передаваться id подзадачи");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics?subtasks=all"))
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Неизвестный режим должен отклоняться");
+    }
 }
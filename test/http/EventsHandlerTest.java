@@ -0,0 +1,159 @@
+package http;
+
+import managers.InMemoryTaskManager;
+import managers.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventsHandlerTest {
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    private TaskManager manager;
+    private HttpTaskServer taskServer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager();
+        ServerConfig config = new ServerConfig();
+        config.setPort(8083);
+        config.setMaxEventSubscribers(3);
+        taskServer = new HttpTaskServer(manager, config);
+        taskServer.start();
+    }
+
+    @AfterEach
+    void shutDown() {
+        taskServer.stop();
+    }
+
+    @Test
+    void shouldStreamChangesAsServerSentEvents() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            HttpResponse<Stream<String>> response = open(null);
+            assertEquals(200, response.statusCode());
+            assertEquals("text/event-stream;charset=utf-8",
+                    response.headers().firstValue("Content-Type").orElse(null));
+            Iterator<String> lines = response.body().iterator();
+
+            Task task = manager.createTask(new Task("Task", "Description"));
+            manager.deleteTask(task.getId());
+            String epoch = manager.getChangeFeed().getEpoch();
+
+            assertEquals(List.of("id: " + epoch + "-1", "event: created", "data: {\"type\":\"TASK\",\"id\":" + task.getId()
+                    + ",\"task\":" + HttpTaskServer.getGson().toJson(task) + "}"), nextEvent(lines));
+            assertEquals(List.of("id: " + epoch + "-2", "event: deleted", "data: {\"type\":\"TASK\",\"id\":" + task.getId() + "}"),
+                    nextEvent(lines), "Событие удаления содержит только тип и id");
+            response.body().close();
+        });
+    }
+
+    @Test
+    void shouldSendEpicEventsWithoutSubtasks() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            HttpResponse<Stream<String>> response = open(null);
+            Iterator<String> lines = response.body().iterator();
+
+            Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+            manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+            nextEvent(lines);
+            nextEvent(lines);
+            String data = nextEvent(lines).get(2);
+            assertTrue(data.startsWith("data: {\"type\":\"EPIC\",\"id\":" + epic.getId() + ",\"task\":{\"id\":"),
+                    "Событие изменения эпика несёт его поля: " + data);
+            assertFalse(data.contains("subtasks"), "Подзадачи приходят своими событиями: " + data);
+            response.body().close();
+        });
+    }
+
+    @Test
+    void shouldResumeFromLastEventId() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 3; i++) {
+                manager.createTask(new Task("Task " + i, "Description"));
+            }
+
+            String epoch = manager.getChangeFeed().getEpoch();
+
+            HttpResponse<Stream<String>> resumed = open(epoch + "-1");
+            Iterator<String> lines = resumed.body().iterator();
+            assertEquals("id: " + epoch + "-2", nextEvent(lines).get(0), "Пропущенные события приходят " +
+                    "после переподключения");
+            assertEquals("id: " + epoch + "-3", nextEvent(lines).get(0));
+            resumed.body().close();
+
+            HttpResponse<Stream<String>> unknown = open(epoch + "-100");
+            lines = unknown.body().iterator();
+            assertEquals(List.of("id: " + epoch + "-3", "event: reset", "data: {}"), nextEvent(lines),
+                    "Если продолжить нельзя, клиент получает reset с текущим номером");
+            unknown.body().close();
+
+            // Номер из прошлого запуска совпадает с существующим, но относится к другим событиям
+            HttpResponse<Stream<String>> restarted = open("previous.1-1");
+            lines = restarted.body().iterator();
+            assertEquals("event: reset", nextEvent(lines).get(1), "Номер другого запуска не продолжается");
+            restarted.body().close();
+        });
+    }
+
+    @Test
+    void shouldRejectInvalidRequests() throws IOException, InterruptedException {
+        HttpRequest badId = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8083/events?after=abc"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(badId, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        List<HttpResponse<Stream<String>>> streams = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            streams.add(open(null));
+        }
+        HttpResponse<Stream<String>> rejected = open(null);
+        assertEquals(503, rejected.statusCode(), "Подписчики сверх лимита получают 503");
+        rejected.body().close();
+        streams.forEach(stream -> stream.body().close());
+    }
+
+    private static HttpResponse<Stream<String>> open(String lastEventId) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8083/events"))
+                .GET();
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofLines());
+    }
+
+    // Строки очередного события до пустой строки, комментарии пропускаются
+    private static List<String> nextEvent(Iterator<String> lines) {
+        List<String> event = new ArrayList<>();
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                event.add(line);
+            }
+        }
+        return event;
+    }
+}
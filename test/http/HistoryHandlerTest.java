@@ -88,4 +88,16 @@ public class HistoryHandlerTest {
         assertEquals(managerHistory.get(0).getId(), history.get(0).getId(), "ID задач в истории " +
                 "должны совпадать");
     }
+
+    @Test
+    void shouldRejectInvalidHistoryLimit() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history?limit=0"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode(), "Некорректный limit должен приводить к статусу 400");
+    }
 }
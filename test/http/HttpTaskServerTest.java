@@ -0,0 +1,280 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import managers.Managers;
+import managers.TaskManager;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerTest {
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldServeConcurrentRequestsWithConfiguredExecutor() throws IOException {
+        TaskManager manager = Managers.getConcurrent();
+        manager.createTask(new Task("Task", "Description"));
+
+        ServerConfig config = new ServerConfig();
+        config.setPort(8081);
+        config.setExecutorType(ServerConfig.ExecutorType.PLATFORM);
+        config.setPlatformPoolSize(4);
+        config.setMaxConcurrentRequests(2);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
+        server.start();
+        try {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8081/tasks"))
+                        .GET()
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.join().statusCode(), "Все параллельные запросы должны быть обработаны");
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void shouldSerializeRequestsToNonThreadSafeManager() throws IOException {
+        TaskManager manager = Managers.getDefault();
+        ServerConfig config = new ServerConfig();
+        config.setPort(8085);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
+        server.start();
+        try {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String json = HttpTaskServer.getGson().toJson(new Task("Task " + i, "Description"));
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8085/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.join().statusCode(), "Все параллельные запросы должны быть обработаны");
+            }
+            assertEquals(100, manager.getAllTasks().size(), "Ни одна задача не должна потеряться");
+            assertEquals(100, manager.getAllTasks().stream().map(Task::getId).distinct().count(),
+                    "Id задач не должны повторяться");
+        } finally {
+            server.stop();
+        }
+    }
+
+    // Блокировка менеджера держится только на время его вызова: клиент, который не читает большой ответ,
+    // не задерживает остальные запросы
+    @Test
+    void shouldNotHoldManagerLockWhileSendingResponse() throws IOException, InterruptedException {
+        TaskManager manager = Managers.getDefault();
+        String description = "x".repeat(1_000);
+        for (int i = 0; i < 20_000; i++) {
+            manager.createTask(new Task("Task " + i, description));
+        }
+        ServerConfig config = new ServerConfig();
+        config.setPort(8087);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
+        server.start();
+        try (Socket slowClient = new Socket("localhost", 8087)) {
+            slowClient.getOutputStream().write("GET /tasks HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            slowClient.getOutputStream().flush();
+            // Ответ около 20 МБ не помещается в буферы сокета: обработчик ждёт, пока клиент начнёт читать
+            Thread.sleep(500);
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8087/tasks/1"))
+                    .timeout(java.time.Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), "Запрос не должен ждать медленного клиента");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void shouldCompressLargeResponsesWhenAccepted() throws IOException, InterruptedException {
+        TaskManager manager = Managers.getDefault();
+        for (int i = 0; i < 200; i++) {
+            manager.createTask(new Task("Task " + i, "Повторяющееся описание задачи"));
+            manager.createEpic(new Epic("Epic " + i, "Повторяющееся описание эпика"));
+        }
+
+        ServerConfig config = new ServerConfig();
+        config.setPort(8082);
+        config.setCompressionThreshold(4096);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
+        server.start();
+        try {
+            HttpResponse<byte[]> plain = get("http://localhost:8082/tasks", null);
+            assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty(), "Без Accept-Encoding " +
+                    "ответ не сжимается");
+
+            HttpResponse<byte[]> gzip = get("http://localhost:8082/tasks", "deflate;q=0.5, gzip");
+            assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+            assertTrue(gzip.body().length * 4 < plain.body().length, "Повторяющийся JSON должен хорошо сжиматься");
+            assertArrayEquals(plain.body(), new GZIPInputStream(new ByteArrayInputStream(gzip.body())).readAllBytes(),
+                    "После распаковки должен получиться тот же JSON");
+
+            HttpResponse<byte[]> deflate = get("http://localhost:8082/tasks", "gzip;q=0, deflate");
+            assertEquals("deflate", deflate.headers().firstValue("Content-Encoding").orElse(null));
+            assertArrayEquals(plain.body(), new InflaterInputStream(new ByteArrayInputStream(deflate.body()))
+                    .readAllBytes());
+
+            HttpResponse<byte[]> small = get("http://localhost:8082/tasks/1", "gzip");
+            assertTrue(small.headers().firstValue("Content-Encoding").isEmpty(), "Ответ меньше порога " +
+                    "не сжимается");
+
+            // Размер потоковых ответов заранее неизвестен: решение принимается по первым байтам
+            HttpResponse<byte[]> slots = get("http://localhost:8082/schedule?duration=1"
+                    + "&from=2030-01-01T00:00&to=2030-01-02T00:00", "gzip");
+            assertEquals(200, slots.statusCode());
+            assertTrue(slots.headers().firstValue("Content-Encoding").isEmpty());
+            HttpResponse<byte[]> epics = get("http://localhost:8082/epics?subtasks=ids", "gzip");
+            assertEquals("gzip", epics.headers().firstValue("Content-Encoding").orElse(null));
+            assertArrayEquals(get("http://localhost:8082/epics?subtasks=ids", null).body(),
+                    new GZIPInputStream(new ByteArrayInputStream(epics.body())).readAllBytes());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static HttpResponse<byte[]> get(String uri, String acceptEncoding) throws IOException,
+            InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(uri)).GET();
+        if (acceptEncoding != null) {
+            builder.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    // Ключ, который Gson не может записать: toString вызывается при сериализации ключей Map
+    private static final Object BROKEN_KEY = new Object() {
+        @Override
+        public String toString() {
+            throw new IllegalStateException("Ключ не сериализуется");
+        }
+    };
+
+    @Test
+    void shouldReportSerializationFailureBeforeHeadersAreSent() throws IOException, InterruptedException {
+        Map<Object, Object> small = new LinkedHashMap<>();
+        small.put("ok", 1);
+        small.put(BROKEN_KEY, 2);
+        Map<Object, Object> large = new LinkedHashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            large.put("key " + i, "value " + i);
+        }
+        large.put(BROKEN_KEY, 0);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(8086), 0);
+        server.createContext("/small", jsonHandler(small));
+        server.createContext("/large", jsonHandler(large));
+        server.start();
+        try {
+            HttpResponse<byte[]> response = get("http://localhost:8086/small", null);
+            assertEquals(500, response.statusCode(), "Ошибка в небольшом ответе должна стать ответом 500");
+            assertTrue(new String(response.body(), StandardCharsets.UTF_8).startsWith("{\"error\""),
+                    "Тело ответа - описание ошибки, а не начало JSON");
+
+            assertThrows(IOException.class, () -> get("http://localhost:8086/large", null),
+                    "Оборванный потоковый ответ не должен выглядеть полным");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static BaseHttpHandler jsonHandler(Object body) {
+        return new BaseHttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    sendJson(exchange, body, 200);
+                } catch (Exception e) {
+                    sendServerError(exchange, "Internal server error: " + e.getMessage());
+                } finally {
+                    exchange.close();
+                }
+            }
+        };
+    }
+
+    @Test
+    void shouldNegotiateEncoding() {
+        assertEquals("gzip", BaseHttpHandler.negotiateEncoding("gzip, deflate, br"));
+        assertEquals("deflate", BaseHttpHandler.negotiateEncoding("gzip;q=0.2, deflate;q=0.8"));
+        assertEquals("gzip", BaseHttpHandler.negotiateEncoding("*"));
+        assertNull(BaseHttpHandler.negotiateEncoding("gzip;q=0, identity"));
+        assertNull(BaseHttpHandler.negotiateEncoding(null));
+    }
+
+    @Test
+    void shouldKeepEventSubscribersBelowRequestCapacity() {
+        ServerConfig config = new ServerConfig();
+        config.setPort(8084);
+        config.setExecutorType(ServerConfig.ExecutorType.PLATFORM);
+        config.setPlatformPoolSize(8);
+        assertEquals(2, config.getMaxEventSubscribers(), "По умолчанию подписчикам достаётся четверть пула");
+
+        config.setMaxEventSubscribers(8);
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(), config),
+                "Подписчики не должны занимать весь пул");
+        config.setExecutorType(ServerConfig.ExecutorType.VIRTUAL);
+        config.setMaxConcurrentRequests(8);
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(), config),
+                "Подписчики не должны занимать все разрешения");
+    }
+    // Номера изменений у каждого менеджера свои: тег одного менеджера не должен совпасть с тегом другого
+    @Test
+    void shouldNotReuseETagsAcrossManagers() throws IOException, InterruptedException {
+        List<String> etags = new ArrayList<>();
+        for (int port : new int[]{8088, 8089}) {
+            TaskManager manager = Managers.getDefault();
+            manager.createTask(new Task("Task", "Description"));
+            ServerConfig config = new ServerConfig();
+            config.setPort(port);
+            HttpTaskServer server = new HttpTaskServer(manager, config);
+            server.start();
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/tasks")).GET();
+                if (!etags.isEmpty()) {
+                    request.header("If-None-Match", etags.get(0));
+                }
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode(), "Тег другого менеджера не должен давать 304");
+                etags.add(response.headers().firstValue("ETag").orElseThrow());
+            } finally {
+                server.stop();
+            }
+        }
+        assertNotEquals(etags.get(0), etags.get(1), "У менеджеров с одинаковыми номерами изменений теги разные");
+    }
+}
@@ -102,6 +102,36 @@ public class PrioritizedHandlerTest {
                 "списка");
     }
 
+    @Test
+    void shouldReturnTasksInTimeWindow() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2031, 5, 1, 9, 0);
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task("Task " + i, "Hourly task");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofMinutes(45));
+            sendTaskToServer(task);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2031-05-01T10:30&to=2031-05-01T12:00"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Должен быть статус 200 (OK)");
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {}.getType());
+        assertEquals(2, tasks.size(), "В окно попадают начавшаяся раньше и начавшаяся внутри задачи");
+        assertEquals("Task 1", tasks.get(0).getTitle());
+        assertEquals("Task 2", tasks.get(1).getTitle());
+
+        HttpRequest invalidRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=tomorrow"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(invalidRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Некорректная дата - статус 400 (Bad Request)");
+    }
+
     private void sendTaskToServer(Task task) throws IOException, InterruptedException {
         String jsonTask = gson.toJson(task);
         HttpRequest request = HttpRequest.newBuilder()
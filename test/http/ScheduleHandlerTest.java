@@ -0,0 +1,116 @@
+package http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import managers.InMemoryTaskManager;
+import managers.TaskManager;
+import org.junit.jupiter.api.*;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TimeSlot;
+import utils.DurationTypeAdapter;
+import utils.LocalDateTimeTypeAdapter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleHandlerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2031, 3, 1, 9, 0);
+
+    private static HttpTaskServer taskServer;
+    private static TaskManager manager;
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .create();
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        manager = new InMemoryTaskManager();
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+    }
+
+    @AfterAll
+    static void shutDown() {
+        taskServer.stop();
+    }
+
+    @BeforeEach
+    void clearTasks() {
+        manager.deleteAllTasks();
+        manager.deleteAllEpics();
+        Task busy = new Task("Busy", "Occupies 09:00-10:00");
+        busy.setStartTime(START);
+        busy.setDuration(Duration.ofMinutes(60));
+        manager.createTask(busy);
+    }
+
+    @Test
+    void shouldScheduleTaskAndSubtaskAfterBusyTime() throws IOException, InterruptedException {
+        Task task = new Task("Planned", "Description");
+        task.setStartTime(START);
+        task.setDuration(Duration.ofMinutes(30));
+
+        HttpResponse<String> response = post(gson.toJson(task));
+
+        assertEquals(201, response.statusCode(), "Должен быть статус 201 (Created)");
+        Task scheduled = gson.fromJson(response.body(), Task.class);
+        assertEquals(START.plusMinutes(60), scheduled.getStartTime(), "Задача должна встать сразу после занятого " +
+                "времени");
+        assertNotEquals(0, scheduled.getId(), "Задача должна быть создана");
+
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = new Subtask("Planned subtask", "Description", epic.getId());
+        subtask.setStartTime(START);
+        subtask.setDuration(Duration.ofMinutes(15));
+        HttpResponse<String> subtaskResponse = post(gson.toJson(subtask));
+
+        assertEquals(201, subtaskResponse.statusCode());
+        assertEquals(1, manager.getSubtasksByEpic(epic.getId()).size(), "Тело с epicId создаёт подзадачу");
+        assertEquals(START.plusMinutes(90), manager.getSubtasksByEpic(epic.getId()).get(0).getStartTime());
+    }
+
+    @Test
+    void shouldReturnFreeSlots() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/schedule?duration=30&from=2031-03-01T08:00"
+                        + "&to=2031-03-01T11:00"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Должен быть статус 200 (OK)");
+        List<TimeSlot> slots = gson.fromJson(response.body(), new TypeToken<List<TimeSlot>>() {}.getType());
+        assertEquals(List.of(new TimeSlot(START.minusHours(1), START), new TimeSlot(START.plusHours(1),
+                START.plusHours(2))), slots, "Свободное время до и после занятой задачи");
+
+        HttpRequest invalidRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/schedule?duration=0&from=2031-03-01T08:00"
+                        + "&to=2031-03-01T11:00"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(invalidRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Нулевая длительность - статус 400 (Bad Request)");
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/schedule"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
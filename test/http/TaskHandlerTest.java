@@ -7,6 +7,7 @@ import managers.InMemoryTaskManager;
 import managers.NotFoundException;
 import managers.TaskManager;
 import org.junit.jupiter.api.*;
+import tasks.Epic;
 import tasks.Status;
 import tasks.Task;
 import utils.DurationTypeAdapter;
@@ -20,6 +21,7 @@ import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -236,4 +238,235 @@ public class TaskHandlerTest {
         assertThrows(NotFoundException.class, () -> manager.getTaskById(task.getId()),
                 "Задача должна быть удалена");
     }
+
+    @Test
+    void shouldGetTasksPageByCursor() throws IOException, InterruptedException {
+        for (int i = 1; i <= 5; i++) {
+            manager.createTask(new Task("Task " + i, "Description"));
+        }
+
+        HttpRequest firstRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2"))
+                .GET()
+                .build();
+        HttpResponse<String> firstResponse = client.send(firstRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, firstResponse.statusCode(), "Должен быть статус 200 (OK)");
+        List<Task> firstPage = gson.fromJson(firstResponse.body(), new TypeToken<List<Task>>() {}.getType());
+        assertEquals(2, firstPage.size(), "Страница должна содержать две задачи");
+        String cursor = firstResponse.headers().firstValue("X-Next-Cursor").orElseThrow();
+        assertEquals(String.valueOf(firstPage.get(1).getId()), cursor, "Курсор - id последней задачи страницы");
+
+        HttpRequest nextRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=10&after=" + cursor))
+                .GET()
+                .build();
+        HttpResponse<String> nextResponse = client.send(nextRequest, HttpResponse.BodyHandlers.ofString());
+
+        List<Task> nextPage = gson.fromJson(nextResponse.body(), new TypeToken<List<Task>>() {}.getType());
+        assertEquals(3, nextPage.size(), "Следующая страница должна содержать оставшиеся задачи");
+        assertTrue(nextResponse.headers().firstValue("X-Next-Cursor").isEmpty(),
+                "У последней страницы не должно быть курсора");
+    }
+
+    @Test
+    void shouldFilterTasksByStatus() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Description"));
+        Task done = new Task("Task 2", "Description");
+        done.setStatus(Status.DONE);
+        manager.createTask(done);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=DONE"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Должен быть статус 200 (OK)");
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {}.getType());
+        assertEquals(1, tasks.size(), "Должна вернуться только задача с указанным статусом");
+        assertEquals(done.getId(), tasks.get(0).getId());
+        assertEquals("1", response.headers().firstValue("X-Total-Count").orElseThrow(),
+                "Заголовок должен содержать число задач с этим статусом");
+
+        HttpRequest invalidRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=UNKNOWN"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(invalidRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Неизвестный статус - статус 400 (Bad Request)");
+    }
+
+    @Test
+    void shouldCreateAndDeleteTasksInBatch() throws IOException, InterruptedException {
+        List<Task> batch = List.of(new Task("Task 1", "Description"), new Task("Task 2", "Description"));
+        HttpRequest createRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch)))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> createResponse = client.send(createRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, createResponse.statusCode(), "Должен быть статус 201 (Created)");
+        List<Task> created = gson.fromJson(createResponse.body(), new TypeToken<List<Task>>() {}.getType());
+        assertEquals(2, created.size());
+        assertEquals(2, manager.getAllTasks().size(), "Должны быть созданы все задачи пакета");
+
+        HttpRequest missingRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch?ids=" + created.get(0).getId() + ",999"))
+                .DELETE()
+                .build();
+        assertEquals(404, client.send(missingRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Неизвестный id - статус 404 (Not Found)");
+        assertEquals(2, manager.getAllTasks().size(), "При ошибке ничего не должно удаляться");
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch?ids=" + created.get(0).getId() + ","
+                        + created.get(1).getId()))
+                .DELETE()
+                .build();
+        assertEquals(200, client.send(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(manager.getAllTasks().isEmpty(), "Все задачи пакета должны быть удалены");
+    }
+
+    @Test
+    void shouldScopeBatchToTaskType() throws IOException, InterruptedException {
+        Task task = manager.createTask(new Task("Task", "Description"));
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        HttpRequest deleteEpicRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch?ids=" + task.getId() + "," + epic.getId()))
+                .DELETE()
+                .build();
+        assertEquals(404, client.send(deleteEpicRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Эпик нельзя удалить через /tasks/batch");
+        assertEquals(1, manager.getAllTasks().size(), "При ошибке ничего не должно удаляться");
+        assertEquals(1, manager.getAllEpics().size());
+
+        HttpRequest invalidRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"title\":\"Task\",\"duration\":true}]"))
+                .build();
+        assertEquals(400, client.send(invalidRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Некорректное поле - статус 400, а не 406");
+
+        Task first = new Task("First", "Description");
+        first.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 0));
+        first.setDuration(Duration.ofMinutes(60));
+        Task second = new Task("Second", "Description");
+        second.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 30));
+        second.setDuration(Duration.ofMinutes(60));
+        HttpRequest overlapRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(List.of(first, second))))
+                .build();
+        assertEquals(406, client.send(overlapRequest, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Пересечение по времени - статус 406");
+    }
+
+    @Test
+    void shouldReturn400ForInvalidLimit() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=abc"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode(), "Должен быть статус 400 (Bad Request)");
+    }
+
+    @Test
+    void shouldEscapeQueryValuesInErrorJson() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=%22a%5Cb"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+        Map<String, String> error = gson.fromJson(response.body(), new TypeToken<Map<String, String>>() {}.getType());
+        assertTrue(error.get("error").contains("\"a\\b"), "Значение из запроса должно сохраниться в сообщении: "
+                + response.body());
+    }
+
+    @Test
+    void shouldReturnFreshJsonAfterUpdate() throws IOException, InterruptedException {
+        Task task = new Task("Test Task", "Test Description");
+        manager.createTask(task);
+        HttpRequest byId = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .GET()
+                .build();
+        HttpRequest all = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        String first = client.send(byId, HttpResponse.BodyHandlers.ofString()).body();
+        assertEquals(first, client.send(byId, HttpResponse.BodyHandlers.ofString()).body(),
+                "Повторный запрос должен вернуть тот же JSON");
+        assertEquals("[" + first + "]", client.send(all, HttpResponse.BodyHandlers.ofString()).body(),
+                "Список должен собираться из тех же фрагментов");
+
+        task.setStatus(Status.DONE);
+        manager.updateTask(task);
+
+        Task updated = gson.fromJson(client.send(byId, HttpResponse.BodyHandlers.ofString()).body(), Task.class);
+        assertEquals(Status.DONE, updated.getStatus(), "После изменения JSON должен построиться заново");
+        List<Task> tasks = gson.fromJson(client.send(all, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeToken<List<Task>>() {}.getType());
+        assertEquals(Status.DONE, tasks.get(0).getStatus(), "Список тоже должен отражать изменение");
+    }
+
+    // Большой список не собирается целиком ради Content-Length: фрагменты уходят потоком (chunked)
+    @Test
+    void shouldStreamLargeTaskList() throws IOException, InterruptedException {
+        String description = "Описание ".repeat(100);
+        for (int i = 0; i < 500; i++) {
+            manager.createTask(new Task("Test Task " + i, description));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(), "Большой список отправляется потоком");
+        assertEquals(HttpTaskServer.getGson().toJson(manager.getAllTasks()), response.body(),
+                "Тело должно совпадать с сериализацией всего списка");
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedCollection() throws IOException, InterruptedException {
+        Task task = new Task("Test Task", "Test Description");
+        manager.createTask(task);
+        URI uri = URI.create("http://localhost:8080/tasks");
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag, "Ответ должен содержать ETag");
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(uri).header("If-None-Match", etag).GET().build();
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode(), "Без изменений должен быть статус 304");
+        assertEquals("", response.body(), "Ответ 304 не содержит тела");
+
+        task.setStatus(Status.DONE);
+        manager.updateTask(task);
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "После изменения данные должны отправиться заново");
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null), "ETag должен измениться");
+
+        HttpRequest byId = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .header("If-None-Match", response.headers().firstValue("ETag").orElseThrow())
+                .GET()
+                .build();
+        manager.deleteAllEpics(); // другие коллекции на ETag задач не влияют
+        assertEquals(304, client.send(byId, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
 }
@@ -0,0 +1,99 @@
+package managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferedHistoryManagerTest {
+    private static final int THREADS = 8;
+    private static final int VIEWS_PER_THREAD = 5_000;
+
+    private BufferedHistoryManager historyManager;
+
+    @BeforeEach
+    public void setUp() {
+        historyManager = new BufferedHistoryManager(new InMemoryHistoryManager(), 64);
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Description");
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void testViewsAreVisibleInOrder() {
+        Task task1 = task(1);
+        Task task2 = task(2);
+        Task task3 = task(3);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.add(task1);
+
+        assertEquals(List.of(task2, task3, task1), historyManager.getHistory(), "История должна отражать все " +
+                "просмотры в порядке их выполнения");
+        assertEquals(List.of(task1), historyManager.getHistory(1));
+
+        historyManager.remove(task3.getId());
+        assertEquals(List.of(task2, task1), historyManager.getHistory());
+    }
+
+    @Test
+    void testRemoveAppliesAfterBufferedViews() {
+        Task task = task(1);
+        for (int i = 0; i < 10; i++) {
+            historyManager.add(task);
+        }
+        historyManager.remove(task.getId());
+
+        assertTrue(historyManager.getHistory().isEmpty(), "Удалённая задача не должна вернуться из буфера");
+    }
+
+    @Test
+    void testConcurrentViewsKeepPerThreadOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                // У каждого потока свои задачи: id = thread * VIEWS_PER_THREAD + i + 1
+                for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                    historyManager.add(task(thread * VIEWS_PER_THREAD + i + 1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(THREADS * VIEWS_PER_THREAD, history.size(), "В истории должны быть все просмотры");
+
+        Map<Integer, Integer> lastSeen = new HashMap<>();
+        for (Task task : history) {
+            int thread = (task.getId() - 1) / VIEWS_PER_THREAD;
+            Integer previous = lastSeen.put(thread, task.getId());
+            assertTrue(previous == null || previous < task.getId(), "Просмотры одного потока должны идти " +
+                    "в порядке выполнения");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+    @Test
+    void testManagerPublishesChangesInOrder() throws InterruptedException {
+        TaskManager manager = new InMemoryTaskManager();
+        ChangeFeed.Subscription subscription = manager.getChangeFeed().subscribe(16);
+
+        Task task = manager.createTask(new Task("Task", "Description"));
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        task.setTitle("Updated");
+        manager.updateTask(task);
+        manager.deleteEpic(epic.getId());
+
+        List<String> events = new ArrayList<>();
+        TaskEvent event;
+        long sequence = 0;
+        while ((event = subscription.poll(0, TimeUnit.SECONDS)) != null) {
+            assertEquals(sequence + 1, event.getSequence(), "Номера событий должны идти подряд");
+            sequence = event.getSequence();
+            events.add(event.getAction() + " " + event.getType() + " " + event.getId());
+        }
+
+        assertEquals(List.of(
+                "CREATED TASK " + task.getId(),
+                "CREATED EPIC " + epic.getId(),
+                "CREATED SUBTASK " + subtask.getId(),
+                "UPDATED EPIC " + epic.getId(),
+                "UPDATED TASK " + task.getId(),
+                "DELETED SUBTASK " + subtask.getId(),
+                "DELETED EPIC " + epic.getId()), events);
+        assertEquals(sequence, manager.getChangeFeed().getLastSequence());
+    }
+
+    @Test
+    void testEventKeepsTaskStateAtPublishTime() throws InterruptedException {
+        TaskManager manager = new InMemoryTaskManager();
+        ChangeFeed.Subscription subscription = manager.getChangeFeed().subscribe(16);
+
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setStatus(Status.DONE);
+        manager.createSubtask(subtask);
+        epic.setTitle("Renamed");
+        subtask.setTitle("Renamed");
+
+        Task created = subscription.poll(0, TimeUnit.SECONDS).getTask();
+        assertNotSame(epic, created, "Событие не должно ссылаться на объект менеджера");
+        assertEquals("Epic", created.getTitle(), "Событие хранит состояние на момент публикации");
+        assertEquals(Status.NEW, created.getStatus());
+
+        assertEquals("Subtask", subscription.poll(0, TimeUnit.SECONDS).getTask().getTitle());
+        Epic updated = (Epic) subscription.poll(0, TimeUnit.SECONDS).getTask();
+        assertEquals(Status.DONE, updated.getStatus(), "Событие изменения эпика несёт пересчитанный статус");
+        assertTrue(updated.getSubtasks().isEmpty(), "Эпик в событии копируется без подзадач");
+    }
+
+    @Test
+    void testResumeReplaysMissedEvents() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(4);
+        for (int i = 1; i <= 6; i++) {
+            feed.publish(TaskEvent.Action.CREATED, task(i));
+        }
+
+        ChangeFeed.Subscription resumed = feed.subscribe(feed.getEpoch(), 3, 8);
+        assertTrue(resumed.isResumed());
+        feed.publish(TaskEvent.Action.DELETED, task(1));
+        for (long expected = 4; expected <= 6; expected++) {
+            assertEquals(expected, resumed.poll(0, TimeUnit.SECONDS).getSequence(), "Сначала пропущенные " +
+                    "события из кольца");
+        }
+        TaskEvent deleted = resumed.poll(0, TimeUnit.SECONDS);
+        assertEquals(7, deleted.getSequence(), "Затем новые события");
+        assertNull(deleted.getTask(), "Событие удаления не несёт задачу");
+
+        ChangeFeed.Subscription tooOld = feed.subscribe(feed.getEpoch(), 1, 8);
+        assertFalse(tooOld.isResumed(), "Вытесненные события восстановить нельзя");
+        assertEquals(7, tooOld.getStartSequence());
+        assertNull(tooOld.poll(0, TimeUnit.SECONDS));
+        assertFalse(feed.subscribe(feed.getEpoch(), 100, 8).isResumed(), "Номер больше последнего " +
+                "продолжить нельзя");
+        assertFalse(feed.subscribe(new ChangeFeed(4).getEpoch(), 5, 8).isResumed(), "Номер другой ленты " +
+                "(прошлого запуска) продолжить нельзя, даже если такой номер есть");
+    }
+
+    @Test
+    void testSlowSubscriberIsDropped() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed();
+        ChangeFeed.Subscription slow = feed.subscribe(2);
+        ChangeFeed.Subscription fast = feed.subscribe(16);
+
+        for (int i = 1; i <= 3; i++) {
+            feed.publish(TaskEvent.Action.CREATED, task(i));
+        }
+
+        assertTrue(slow.isClosed() && slow.isOverflowed(), "Переполненный подписчик должен быть отключён");
+        assertNull(slow.poll(1, TimeUnit.SECONDS), "Отключённый подписчик не получает событий");
+        assertFalse(fast.isClosed(), "Остальные подписчики не затронуты");
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, fast.poll(0, TimeUnit.SECONDS).getId());
+        }
+
+        fast.close();
+        feed.publish(TaskEvent.Action.CREATED, task(4));
+        assertTrue(fast.isClosed() && !fast.isOverflowed());
+        assertNull(fast.poll(0, TimeUnit.SECONDS));
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Description");
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,115 @@
+package managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        manager = createManager();
+    }
+
+    @Test
+    void testConcurrentWritersAndReadersKeepStateConsistent() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Epic", "Shared epic"));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Task task = new Task("Task " + thread + "-" + i, "Stress");
+                    // Все потоки претендуют на одни и те же интервалы - выжить должен ровно один
+                    task.setStartTime(start.plusMinutes(10L * i));
+                    task.setDuration(Duration.ofMinutes(10));
+                    try {
+                        manager.createTask(task);
+                        manager.getTaskById(task.getId());
+                    } catch (IllegalArgumentException ignored) {
+                        // пересечение с задачей другого потока
+                    }
+                    manager.createSubtask(new Subtask("Subtask " + thread + "-" + i, "Stress", epic.getId()));
+                    manager.getAllTasks();
+                    manager.getPrioritizedTasks();
+                    manager.getHistory();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(OPERATIONS_PER_THREAD, manager.getAllTasks().size(),
+                "На каждый интервал должна приходиться ровно одна задача");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, manager.getAllSubtasks().size(),
+                "Все подзадачи должны быть сохранены");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, manager.getSubtasksByEpic(epic.getId()).size(),
+                "Все подзадачи должны попасть в эпик");
+
+        Set<Integer> ids = new HashSet<>();
+        manager.getAllTasks().forEach(task -> ids.add(task.getId()));
+        manager.getAllSubtasks().forEach(subtask -> ids.add(subtask.getId()));
+        assertEquals(OPERATIONS_PER_THREAD + THREADS * OPERATIONS_PER_THREAD, ids.size(),
+                "Идентификаторы не должны повторяться");
+        assertEquals(OPERATIONS_PER_THREAD,
+                manager.getPrioritizedTasks().stream().filter(task -> task.getStartTime() != null).count(),
+                "Приоритетный список должен содержать все задачи со временем");
+    }
+
+    @Test
+    void testReadsReturnSnapshots() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        Epic snapshot = manager.getEpicById(epic.getId());
+        snapshot.setTitle("Changed");
+        assertEquals("Epic", manager.getAllEpics().get(0).getTitle(), "Изменение копии не должно затрагивать " +
+                "задачу в менеджере");
+
+        // Читатель обходит подзадачи полученного эпика, пока писатель добавляет новые
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                manager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+            }
+        });
+        while (!writer.isDone()) {
+            Epic read = manager.getEpicById(epic.getId());
+            int size = read.getSubtasks().size();
+            for (Subtask subtask : read.getSubtasks()) {
+                assertEquals(epic.getId(), subtask.getEpicId());
+            }
+            assertEquals(size, read.getSubtasks().size(), "Копия не должна меняться после чтения");
+        }
+        writer.get();
+        executor.shutdown();
+        assertEquals(OPERATIONS_PER_THREAD + 1, manager.getEpicById(epic.getId()).getSubtasks().size());
+    }
+}
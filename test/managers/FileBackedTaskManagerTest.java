@@ -7,8 +7,20 @@ import tasks.Task;
 import tasks.Subtask;
 import tasks.Status;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -59,4 +71,330 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         FileBackedTaskManager afterDeleteManager = FileBackedTaskManager.loadFromFile(tempFile);
         assertTrue(afterDeleteManager.getAllTasks().isEmpty(), "Задачи должны быть удалены");
     }
+
+    @Test
+    void testJournaledManagerRestoresStateFromJournal() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        Task task = journaled.createTask(new Task("Задача", "Описание"));
+        Epic epic = journaled.createEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = journaled.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        Subtask removed = journaled.createSubtask(new Subtask("Удаляемая", "Описание", epic.getId()));
+
+        subtask.setStatus(Status.DONE);
+        journaled.updateSubtask(subtask);
+        journaled.deleteSubtask(removed.getId());
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(task, loaded.getTaskById(task.getId()), "Задача должна восстановиться из журнала");
+        assertEquals(1, loaded.getAllSubtasks().size(), "Удалённая подзадача не должна восстановиться");
+        assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен пересчитаться после загрузки");
+
+        Task next = loaded.createTask(new Task("Новая задача", "Описание"));
+        assertTrue(next.getId() > removed.getId(), "Идентификаторы не должны повторяться после загрузки");
+        loaded.close();
+    }
+
+    @Test
+    void testConstructorKeepsExistingFilesUntilFirstChange() throws IOException {
+        FileBackedTaskManager previous = new FileBackedTaskManager(tempFile, true);
+        previous.createTask(new Task("Прежняя задача", "Описание"));
+        previous.close();
+        File journal = new File(tempFile.getPath() + ".journal");
+        byte[] snapshotBytes = Files.readAllBytes(tempFile.toPath());
+        byte[] journalBytes = Files.readAllBytes(journal.toPath());
+
+        FileBackedTaskManager fresh = new FileBackedTaskManager(tempFile, Durability.SYNC);
+        assertArrayEquals(snapshotBytes, Files.readAllBytes(tempFile.toPath()), "Создание менеджера не должно " +
+                "перезаписывать снимок");
+        assertArrayEquals(journalBytes, Files.readAllBytes(journal.toPath()), "Создание менеджера не должно " +
+                "очищать журнал");
+
+        Task task = fresh.createTask(new Task("Новая задача", "Описание"));
+        fresh.close();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(List.of(task), loaded.getAllTasks(), "После первого изменения файлы содержат только " +
+                "состояние нового менеджера");
+        assertEquals("Новая задача", loaded.getTaskById(task.getId()).getTitle());
+        loaded.close();
+    }
+
+    @Test
+    void testJournaledDeleteEpicRemovesSubtasksAfterReload() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        Epic epic = journaled.createEpic(new Epic("Эпик", "Описание эпика"));
+        journaled.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        journaled.deleteEpic(epic.getId());
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertTrue(loaded.getAllEpics().isEmpty(), "Эпик должен быть удалён");
+        assertTrue(loaded.getAllSubtasks().isEmpty(), "Подзадачи удалённого эпика должны быть удалены");
+        loaded.close();
+    }
+
+    @Test
+    void testJournalCompactionWritesSnapshot() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        journaled.setCompactionThreshold(2);
+        journaled.createTask(new Task("Задача 1", "Описание"));
+        journaled.createTask(new Task("Задача 2", "Описание"));
+        journaled.createTask(new Task("Задача 3", "Описание"));
+        journaled.close();
+
+        assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size(),
+                "После сжатия снимок должен содержать задачи из журнала");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(tempFile, true).getAllTasks().size(),
+                "Снимок вместе с журналом должен содержать все задачи");
+    }
+
+    @Test
+    void testTornJournalTailIsCutBeforeAppend() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        journaled.setCompactionThreshold(1_000);
+        Task kept = journaled.createTask(new Task("Задача", "Описание"));
+        journaled.close();
+        // Сбой посреди записи: в журнале остаётся строка без перевода строки
+        File journal = new File(tempFile.getPath() + ".journal");
+        Files.writeString(journal.toPath(), "PUT,2,TASK,Tor", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        reloaded.setCompactionThreshold(1_000);
+        Task added = reloaded.createTask(new Task("Новая", "Описание"));
+        reloaded.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(List.of(kept, added), loaded.getAllTasks(), "Запись после оборванной не должна " +
+                "склеиваться с ней");
+        loaded.close();
+    }
+
+    @Test
+    void testTornBatchIsDiscardedOnReplay() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        journaled.setCompactionThreshold(1_000);
+        Task kept = journaled.createTask(new Task("Задача", "Описание"));
+        journaled.createAll(List.of(new Task("Пакет 1", "Описание"), new Task("Пакет 2", "Описание"),
+                new Task("Пакет 3", "Описание")));
+        journaled.close();
+        // Сбой посреди пакета: первые записи пакета дописаны целиком, COMMIT - нет
+        File journal = new File(tempFile.getPath() + ".journal");
+        String content = Files.readString(journal.toPath());
+        Files.writeString(journal.toPath(), content.substring(0, content.indexOf("Пакет 3")));
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(List.of(kept), reloaded.getAllTasks(), "Неподтверждённый пакет не должен применяться частично");
+        reloaded.setCompactionThreshold(1_000);
+        Task added = reloaded.createTask(new Task("Новая", "Описание"));
+        reloaded.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(List.of(kept, added), loaded.getAllTasks());
+        loaded.close();
+    }
+
+    @Test
+    void testBatchIsJournaledInOneAppend() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile, true);
+        journaled.setCompactionThreshold(1_000);
+        Epic epic = journaled.createEpic(new Epic("Эпик", "Описание"));
+        List<Task> batch = List.of(new Task("Задача 1", "Описание"), new Task("Задача, 2", "Описание"),
+                new Subtask("Подзадача", "Описание", epic.getId()));
+        journaled.createAll(batch);
+        journaled.deleteAll(List.of(batch.get(0).getId()));
+        journaled.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, true);
+        assertEquals(List.of(batch.get(1)), loaded.getAllTasks(), "Пакеты создания и удаления должны " +
+                "восстанавливаться из журнала");
+        assertEquals(1, loaded.getSubtasksByEpic(epic.getId()).size());
+        loaded.close();
+    }
+
+    @Test
+    void testGroupCommitFutureCompletesAfterRecordsAreWritten() {
+        FileBackedTaskManager grouped = new FileBackedTaskManager(tempFile, Durability.GROUP_COMMIT);
+        for (int i = 0; i < 10; i++) {
+            grouped.createTask(new Task("Задача " + i, "Описание"));
+        }
+        grouped.getCommitFuture().join();
+        assertEquals(10, FileBackedTaskManager.loadFromFile(tempFile, Durability.SYNC).getAllTasks().size(),
+                "После подтверждения все записи должны быть в журнале");
+        grouped.close();
+    }
+
+    // Пока идёт один сброс (здесь его задерживает удержание блокировки журнала), новые записи копятся
+    // и уходят следующим одним fsync
+    @Test
+    void testGroupCommitBatchesRecordsArrivingDuringFlush() {
+        TaskJournal journal = new TaskJournal(new File(tempFile.getPath() + ".journal"), Durability.GROUP_COMMIT,
+                FileBackedTaskManager.DEFAULT_ASYNC_FLUSH_INTERVAL_MILLIS, FileBackedTaskManager.DEFAULT_MAX_BATCH_SIZE);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        synchronized (journal) {
+            for (int i = 1; i <= 50; i++) {
+                futures.add(journal.appendDelete(i));
+            }
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(50, journal.size());
+        assertTrue(journal.getSyncCount() <= 2, "Записи должны уйти не более чем двумя сбросами, а не "
+                + journal.getSyncCount());
+        journal.close();
+    }
+
+    @Test
+    void testCommitFutureBelongsToMutatingThread() throws Exception {
+        FileBackedTaskManager grouped = new FileBackedTaskManager(tempFile, Durability.GROUP_COMMIT);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Void> committed = writer.submit(() -> {
+                grouped.createTask(new Task("Задача", "Описание"));
+                return grouped.getCommitFuture();
+            }).get();
+            assertTrue(grouped.getCommitFuture().isDone(), "Поток без изменений не ждёт чужих записей");
+
+            committed.join();
+            assertEquals(1, FileBackedTaskManager.loadFromFile(tempFile, Durability.SYNC).getAllTasks().size(),
+                    "После подтверждения запись потока должна быть в журнале");
+        } finally {
+            writer.shutdown();
+            grouped.close();
+        }
+    }
+
+    @Test
+    void testAsyncModeFlushesOnDemand() {
+        FileBackedTaskManager async = new FileBackedTaskManager(tempFile, Durability.ASYNC);
+        async.createTask(new Task("Задача", "Описание"));
+        assertTrue(async.getCommitFuture().isDone(), "В режиме ASYNC изменение подтверждается сразу");
+
+        async.flush().join();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(tempFile, Durability.SYNC).getAllTasks().size(),
+                "После flush запись должна быть в журнале");
+        async.close();
+    }
+
+    // Файл читается кусками: записи, перевод строки в кавычках и запись длиннее буфера попадают на стыки
+    @Test
+    void testCsvRecordsAcrossReadBuffersAreRestored() {
+        String longTitle = "Длинное название, ".repeat(8_000);
+        manager.createTask(new Task(longTitle, "Описание"));
+        for (int i = 0; i < 3_000; i++) {
+            Task task = new Task("Задача " + i + ", с запятой", "Строка \"1\"\nстрока 2");
+            task.setStartTime(LocalDateTime.of(2030, 1, 1, 0, 0).plusMinutes(30L * i));
+            task.setDuration(Duration.ofMinutes(15));
+            manager.createTask(task);
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(manager.getAllTasks(), loaded.getAllTasks(), "Все записи должны восстановиться");
+        assertEquals(longTitle, loaded.getTaskById(1).getTitle(), "Запись длиннее буфера не должна обрезаться");
+        for (Task task : manager.getAllTasks()) {
+            Task restored = loaded.getTaskById(task.getId());
+            assertEquals(task.getTitle(), restored.getTitle());
+            assertEquals(task.getDescription(), restored.getDescription());
+            assertEquals(task.getStartTime(), restored.getStartTime());
+        }
+        assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks(), "Приоритетный список должен " +
+                "совпасть после загрузки");
+    }
+
+    @Test
+    void testBinarySnapshotRoundTrip() throws IOException {
+        manager.setSnapshotFormat(SnapshotFormat.BINARY);
+        Task timed = new Task("Задача, с запятой", "Описание");
+        timed.setStatus(Status.IN_PROGRESS);
+        timed.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 15));
+        timed.setDuration(Duration.ofMinutes(45));
+        manager.createTask(timed);
+        Task untimed = manager.createTask(new Task("Без времени", "Описание"));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        subtask.setStatus(Status.DONE);
+        subtask.setStartTime(LocalDateTime.of(2030, 1, 2, 9, 0));
+        subtask.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(subtask);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(SnapshotFormat.BINARY, loaded.getSnapshotFormat(), "Формат снимка должен определиться " +
+                "автоматически");
+
+        Task loadedTimed = loaded.getTaskById(timed.getId());
+        assertEquals(timed.getTitle(), loadedTimed.getTitle());
+        assertEquals(Status.IN_PROGRESS, loadedTimed.getStatus());
+        assertEquals(timed.getStartTime(), loadedTimed.getStartTime());
+        assertEquals(timed.getDuration(), loadedTimed.getDuration());
+        assertNull(loaded.getTaskById(untimed.getId()).getStartTime(), "Задача без времени должна остаться без " +
+                "времени");
+
+        Epic loadedEpic = loaded.getEpicById(epic.getId());
+        assertEquals(Status.DONE, loadedEpic.getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals(List.of(loadedEpic), loaded.getEpicsByStatus(Status.DONE), "Индекс статусов должен " +
+                "строиться по пересчитанным статусам эпиков");
+        assertEquals(subtask.getEndTime(), loadedEpic.getEndTime(), "Время эпика должно пересчитаться");
+        assertEquals(subtask.getEpicId(), loaded.getSubtaskById(subtask.getId()).getEpicId());
+
+        File csv = File.createTempFile("export", ".csv");
+        loaded.exportToCsv(csv);
+        FileBackedTaskManager imported = FileBackedTaskManager.loadFromFile(csv);
+        assertEquals(SnapshotFormat.CSV, imported.getSnapshotFormat());
+        assertEquals(2, imported.getAllTasks().size(), "Экспорт в CSV должен содержать все задачи");
+        assertEquals(1, imported.getAllSubtasks().size(), "Экспорт в CSV должен содержать все подзадачи");
+    }
+    @Test
+    void testBinarySnapshotReadsAcrossMappedRegions() {
+        manager.setSnapshotFormat(SnapshotFormat.BINARY);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Task task = new Task("Задача " + i + " ".repeat(i * 3), "Длинное описание задачи номер " + i);
+            task.setStartTime(LocalDateTime.of(2030, 1, 1, 0, 0).plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            created.add(manager.createTask(task));
+        }
+        manager.compact();
+
+        // Части по 16 байт: числа и строки попадают на границы частей
+        List<Task> restored = new ArrayList<>();
+        BinarySnapshot.read(tempFile, restored::add, 16);
+        assertEquals(created.size(), restored.size(), "Должны прочитаться все задачи");
+        for (int i = 0; i < created.size(); i++) {
+            Task task = created.get(i);
+            Task loaded = restored.get(i);
+            assertEquals(task.getId(), loaded.getId());
+            assertEquals(task.getTitle(), loaded.getTitle(), "Строка на границе частей должна собраться целиком");
+            assertEquals(task.getDescription(), loaded.getDescription());
+            assertEquals(task.getStartTime(), loaded.getStartTime());
+            assertEquals(task.getDuration(), loaded.getDuration());
+        }
+    }
+
+    @Test
+    void testLoadsSnapshotWithIntOffsets() throws IOException {
+        byte[] title = "Задача".getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+            out.writeInt(0x4B424E31);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(title.length);
+            out.write(title);
+            out.writeInt(7);
+            out.writeInt(0);
+            out.writeInt(-1);
+            out.writeByte(Status.DONE.ordinal());
+            out.writeLong(0);
+            out.writeLong(Task.NO_TIME);
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(SnapshotFormat.BINARY, loaded.getSnapshotFormat(), "Снимок KBN1 должен читаться");
+        Task task = loaded.getTaskById(7);
+        assertEquals("Задача", task.getTitle());
+        assertNull(task.getDescription());
+        assertEquals(Status.DONE, task.getStatus());
+    }
 }
@@ -136,4 +136,64 @@ class InMemoryHistoryManagerTest {
         List<Task> history = historyManager.getHistory();
         assertEquals(List.of(task1, task3), history, "Ошибка: задача должна удаляться корректно.");
     }
+
+    @Test
+    void testCapacityEvictsLeastRecentlyViewed() {
+        InMemoryHistoryManager limited = new InMemoryHistoryManager(2);
+        limited.add(task1);
+        limited.add(task2);
+        limited.add(task1); // task1 снова просмотрена, дольше всех не просматривалась task2
+        limited.add(task3);
+
+        assertEquals(List.of(task1, task3), limited.getHistory(), "Должна вытесняться давно не просмотренная " +
+                "задача");
+
+        limited.remove(task1.getId());
+        limited.add(task2);
+        assertEquals(List.of(task3, task2), limited.getHistory(), "После удаления место в истории освобождается");
+    }
+
+    @Test
+    void testGetHistoryWithLimitReturnsMostRecent() {
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+
+        assertEquals(List.of(task2, task3), historyManager.getHistory(2), "Должны вернуться последние просмотры");
+        assertEquals(List.of(task1, task2, task3), historyManager.getHistory(10));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> historyManager.getHistory(0));
+        assertEquals("Число записей истории должно быть положительным", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
+
+    @Test
+    void testHistoryIsMutableCopy() {
+        historyManager.add(task1);
+        historyManager.add(task2);
+
+        List<Task> history = historyManager.getHistory();
+        history.add(task3);
+        history.remove(task1);
+        assertEquals(List.of(task2, task3), history, "Возвращённый список можно изменять");
+        assertEquals(List.of(task1, task2), historyManager.getHistory(), "Изменения копии не влияют на историю");
+
+        List<Task> limited = historyManager.getHistory(1);
+        limited.add(task1);
+        assertEquals(2, limited.size(), "Список с ограничением тоже изменяемый");
+    }
+
+    @Test
+    void testHistoryStaysBoundedUnderManyViews() {
+        InMemoryHistoryManager limited = new InMemoryHistoryManager(100);
+        for (int i = 1; i <= 100_000; i++) {
+            Task task = new Task("Task " + i, "Description");
+            task.setId(i);
+            limited.add(task);
+        }
+
+        List<Task> history = limited.getHistory();
+        assertEquals(100, history.size(), "История не должна превышать заданный размер");
+        assertEquals(100_000, history.get(99).getId(), "Последней должна быть последняя просмотренная задача");
+        assertEquals(99_901, history.get(0).getId());
+    }
 }
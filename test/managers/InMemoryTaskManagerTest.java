@@ -1,6 +1,13 @@
 package managers;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -13,4 +20,21 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     public void setUp() {
         manager = createManager();
     }
+
+    @Test
+    void testBulkInsertOfTimedTasksIsNotQuadratic() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        int count = 200_000;
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < count; i++) {
+                Task task = new Task("Task " + i, "Bulk");
+                task.setStartTime(start.plusMinutes(15L * i));
+                task.setDuration(Duration.ofMinutes(10));
+                manager.createTask(task);
+            }
+        }, "Проверка пересечений не должна просматривать все задачи");
+
+        assertEquals(count, manager.getAllTasks().size());
+    }
 }
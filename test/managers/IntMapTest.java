@@ -0,0 +1,72 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntMapTest {
+    @Test
+    void testKeepsInsertionOrder() {
+        IntMap<String> map = new IntMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(1, "A"); // замена значения не меняет порядок
+
+        assertEquals(List.of("c", "A", "b"), new ArrayList<>(map.values()), "Порядок должен совпадать " +
+                "с порядком добавления");
+        assertArrayEquals(new int[]{3, 1, 2}, map.keys());
+    }
+
+    @Test
+    void testIteratorRemove() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int i = 1; i <= 100; i++) {
+            map.put(i, i);
+        }
+        Iterator<Integer> iterator = map.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(50, map.size());
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i), "Удалены должны быть только чётные ключи");
+        }
+    }
+
+    // Случайные операции сравниваются с LinkedHashMap, включая удаления со сдвигом цепочек и уплотнение
+    @Test
+    void testMatchesLinkedHashMap() {
+        Random random = new Random(42);
+        IntMap<Integer> map = new IntMap<>();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) * (random.nextBoolean() ? 1 : -65_536);
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else if (operation < 9) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+}
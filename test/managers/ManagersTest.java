@@ -13,6 +13,12 @@ class ManagersTest {
         assertTrue(taskManager instanceof InMemoryTaskManager, "Должен быть экземпляр InMemoryTaskManager");
     }
 
+    @Test
+    void testGetConcurrentReturnsThreadSafeTaskManager() {
+        TaskManager taskManager = Managers.getConcurrent();
+        assertTrue(taskManager instanceof ConcurrentTaskManager, "Должен быть экземпляр ConcurrentTaskManager");
+    }
+
     // Возвращение ээкземпляра HistoryManager
     @Test
     void testGetDefaultHistoryReturnsInitializedHistoryManager() {
@@ -0,0 +1,73 @@
+package managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynchronizedTaskManagerTest extends TaskManagerTest<SynchronizedTaskManager> {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 1_000;
+
+    @Override
+    protected SynchronizedTaskManager createManager() {
+        return new SynchronizedTaskManager(new InMemoryTaskManager());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        manager = createManager();
+    }
+
+    @Test
+    void testConcurrentCallsToNonThreadSafeManager() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Epic", "Shared epic"));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        Task task = manager.createTask(new Task("Task " + thread + "-" + i, "Stress"));
+                        manager.getTaskById(task.getId());
+                        manager.createSubtask(new Subtask("Subtask " + thread + "-" + i, "Stress", epic.getId()));
+                        manager.getAllTasks();
+                        manager.getHistory();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, manager.getAllTasks().size(), "Все задачи должны быть сохранены");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, manager.getSubtasksByEpic(epic.getId()).size(),
+                "Все подзадачи должны попасть в эпик");
+    }
+
+    @Test
+    void testReadsReturnCopies() {
+        Task task = manager.createTask(new Task("Task", "Description"));
+        Task read = manager.getTaskById(task.getId());
+
+        assertEquals(task, read);
+        assertNotSame(task, read, "Наружу отдаётся копия, которую можно сериализовать без блокировки");
+        task.setTitle("Renamed");
+        assertEquals("Task", read.getTitle(), "Копия не меняется вместе с оригиналом");
+    }
+}
@@ -5,6 +5,8 @@ import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskType;
+import tasks.TimeSlot;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -412,4 +414,440 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(Status.NEW, manager.getEpicById(epic.getId()).getStatus(),
                 "Статус эпика должен быть NEW, если нет подзадач");
     }
+
+    @Test
+    void testAdjacentTasksDoNotOverlap() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task task1 = new Task("Task 1", "First task");
+        task1.setStartTime(start);
+        task1.setDuration(Duration.ofMinutes(60));
+        manager.createTask(task1);
+
+        Task task2 = new Task("Task 2", "Adjacent task");
+        task2.setStartTime(start.plusMinutes(60));
+        task2.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task2);
+
+        Task task3 = new Task("Task 3", "Task before first");
+        task3.setStartTime(start.minusMinutes(30));
+        task3.setDuration(Duration.ofMinutes(30));
+        manager.createTask(task3);
+
+        assertEquals(3, manager.getAllTasks().size(), "Задачи, идущие встык, не пересекаются");
+    }
+
+    @Test
+    void testOverlapWithLongEarlierTaskIsDetected() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task longTask = new Task("Long task", "Four hours");
+        longTask.setStartTime(start);
+        longTask.setDuration(Duration.ofHours(4));
+        manager.createTask(longTask);
+
+        Task inner = new Task("Inner task", "Inside long task");
+        inner.setStartTime(start.plusHours(3));
+        inner.setDuration(Duration.ofMinutes(30));
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(inner),
+                "Задача внутри длинной задачи должна считаться пересекающейся");
+
+        Task outer = new Task("Outer task", "Covers long task");
+        outer.setStartTime(start.minusHours(1));
+        outer.setDuration(Duration.ofHours(6));
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(outer),
+                "Задача, накрывающая существующую, должна считаться пересекающейся");
+    }
+
+    @Test
+    void testRejectedUpdateKeepsOriginalTimeSlot() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task task1 = new Task("Task 1", "First task");
+        task1.setStartTime(start);
+        task1.setDuration(Duration.ofMinutes(60));
+        manager.createTask(task1);
+
+        Task task2 = new Task("Task 2", "Second task");
+        task2.setStartTime(start.plusHours(2));
+        task2.setDuration(Duration.ofMinutes(60));
+        manager.createTask(task2);
+
+        Task moved = new Task("Task 2", "Moved into first task");
+        moved.setId(task2.getId());
+        moved.setStartTime(start.plusMinutes(30));
+        moved.setDuration(Duration.ofMinutes(60));
+        manager.updateTask(moved);
+
+        Task task3 = new Task("Task 3", "Overlaps original slot of task 2");
+        task3.setStartTime(start.plusHours(2).plusMinutes(15));
+        task3.setDuration(Duration.ofMinutes(15));
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(task3),
+                "Отклонённое обновление не должно освобождать исходный интервал");
+    }
+
+    @Test
+    void testGetTasksPageByCursor() {
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(manager.createTask(new Task("Task " + i, "Description")));
+        }
+        manager.deleteTask(created.get(1).getId());
+
+        List<Task> firstPage = manager.getTasks(0, 2);
+        assertEquals(List.of(created.get(0), created.get(2)), firstPage, "Удалённая задача не должна попасть " +
+                "на страницу");
+
+        List<Task> secondPage = manager.getTasks(firstPage.get(1).getId(), 2);
+        assertEquals(List.of(created.get(3), created.get(4)), secondPage, "Страница должна начинаться после курсора");
+
+        assertTrue(manager.getTasks(created.get(4).getId(), 2).isEmpty(), "После последней задачи страниц нет");
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasks(0, 0),
+                "Размер страницы должен быть положительным");
+    }
+
+    @Test
+    void testGetSubtasksAndEpicsPageByCursor() {
+        Epic epic1 = manager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = manager.createEpic(new Epic("Epic 2", "Description"));
+        Subtask subtask1 = manager.createSubtask(new Subtask("Subtask 1", "Description", epic1.getId()));
+        Subtask subtask2 = manager.createSubtask(new Subtask("Subtask 2", "Description", epic2.getId()));
+
+        assertEquals(List.of(epic2), manager.getEpics(epic1.getId(), 10));
+        assertEquals(List.of(subtask1, subtask2), manager.getSubtasks(0, 10));
+
+        manager.deleteEpic(epic1.getId());
+        assertEquals(List.of(epic2), manager.getEpics(0, 10), "Удалённый эпик не должен попасть на страницу");
+        assertEquals(List.of(subtask2), manager.getSubtasks(0, 10), "Подзадачи удалённого эпика не должны " +
+                "попасть на страницу");
+    }
+
+    @Test
+    void testGetPrioritizedTasksPageByCursor() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        List<Task> created = new ArrayList<>();
+        for (int i = 4; i >= 0; i--) {
+            Task task = new Task("Task " + i, "Description");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            created.add(0, manager.createTask(task));
+        }
+
+        List<Task> firstPage = manager.getPrioritizedTasks(0, 2);
+        assertEquals(List.of(created.get(0), created.get(1)), firstPage, "Страница должна идти по времени начала");
+        assertEquals(List.of(created.get(2), created.get(3)),
+                manager.getPrioritizedTasks(firstPage.get(1).getId(), 2), "Страница должна начинаться после курсора");
+        assertThrows(NotFoundException.class, () -> manager.getPrioritizedTasks(999, 2),
+                "Курсор должен указывать на существующую задачу");
+    }
+
+    @Test
+    void testStatusIndexFollowsUpdatesAndDeletes() {
+        Task task1 = manager.createTask(new Task("Task 1", "Description"));
+        Task task2 = manager.createTask(new Task("Task 2", "Description"));
+        Task task3 = manager.createTask(new Task("Task 3", "Description"));
+
+        assertEquals(List.of(task1, task2, task3), manager.getTasksByStatus(Status.NEW));
+        assertEquals(3, manager.getCount(TaskType.TASK));
+
+        Task updated = new Task("Task 2", "Description");
+        updated.setId(task2.getId());
+        updated.setStatus(Status.DONE);
+        manager.updateTask(updated);
+        // Статус меняется через сеттер уже сохранённого объекта, а затем задача обновляется
+        task1.setStatus(Status.DONE);
+        manager.updateTask(task1);
+
+        assertEquals(List.of(task3), manager.getTasksByStatus(Status.NEW), "Задача должна уйти из индекса " +
+                "прежнего статуса");
+        assertEquals(List.of(task1, updated), manager.getTasksByStatus(Status.DONE), "Список должен идти " +
+                "по возрастанию id");
+        assertEquals(List.of(updated), manager.getTasksByStatus(Status.DONE, task1.getId(), 10));
+        assertEquals(2, manager.getCount(TaskType.TASK, Status.DONE));
+
+        manager.deleteTask(task1.getId());
+        assertEquals(1, manager.getCount(TaskType.TASK, Status.DONE), "Удалённая задача не должна учитываться");
+        manager.deleteAllTasks();
+        assertEquals(0, manager.getCount(TaskType.TASK, Status.DONE));
+        assertTrue(manager.getTasksByStatus(Status.NEW).isEmpty());
+    }
+
+    @Test
+    void testEpicStatusIndexFollowsSubtasks() {
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.NEW));
+
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        assertEquals(List.of(subtask), manager.getSubtasksByStatus(Status.IN_PROGRESS));
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.IN_PROGRESS), "Эпик должен перейти " +
+                "в индекс нового статуса вслед за подзадачей");
+        assertEquals(0, manager.getCount(TaskType.EPIC, Status.NEW));
+
+        manager.deleteSubtask(subtask.getId());
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.NEW), "Эпик без подзадач должен вернуться " +
+                "в статус NEW");
+        assertEquals(0, manager.getCount(TaskType.SUBTASK, Status.IN_PROGRESS));
+
+        manager.deleteEpic(epic.getId());
+        assertEquals(0, manager.getCount(TaskType.EPIC, Status.NEW));
+    }
+
+    @Test
+    void testGetTasksBetweenIncludesOverlappingTasks() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task before = new Task("Before", "Description");
+        before.setStartTime(start);
+        before.setDuration(Duration.ofMinutes(30));
+        Task crossing = new Task("Crossing", "Description");
+        crossing.setStartTime(start.plusHours(1));
+        crossing.setDuration(Duration.ofMinutes(90));
+        Task inside = new Task("Inside", "Description");
+        inside.setStartTime(start.plusHours(3));
+        inside.setDuration(Duration.ofMinutes(30));
+        Task after = new Task("After", "Description");
+        after.setStartTime(start.plusHours(5));
+        after.setDuration(Duration.ofMinutes(30));
+        manager.createTask(after);
+        manager.createTask(inside);
+        manager.createTask(crossing);
+        manager.createTask(before);
+        manager.createTask(new Task("Untimed", "Description"));
+
+        assertEquals(List.of(crossing, inside), manager.getTasksBetween(start.plusHours(2), start.plusHours(5)),
+                "Задача, начавшаяся до окна и ещё идущая, должна попасть в выборку; окно открыто справа");
+        assertEquals(List.of(before, crossing), manager.getTasksBetween(null, start.plusMinutes(61)),
+                "Без начала окна выборка идёт с самой ранней задачи");
+        assertEquals(List.of(after), manager.getTasksBetween(start.plusHours(4), null));
+        assertTrue(manager.getTasksBetween(start.plusMinutes(30), start.plusHours(1)).isEmpty(),
+                "Задачи, лишь касающиеся окна, не пересекаются с ним");
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksBetween(start.plusHours(1), start),
+                "Начало окна не может быть позже конца");
+    }
+
+    @Test
+    void testPrioritizedTasksKeepEqualStartsAndUntimedTasks() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task untimed1 = manager.createTask(new Task("Untimed 1", "Description"));
+        Task untimed2 = manager.createTask(new Task("Untimed 2", "Description"));
+        Task point1 = new Task("Point 1", "Description");
+        point1.setStartTime(start);
+        manager.createTask(point1);
+        Task point2 = new Task("Point 2", "Description");
+        point2.setStartTime(start);
+        manager.createTask(point2);
+        Task untimed3 = manager.createTask(new Task("Untimed 3", "Description"));
+
+        assertEquals(List.of(point1, point2, untimed1, untimed2, untimed3), manager.getPrioritizedTasks(),
+                "Задачи с одинаковым началом и без времени не должны теряться");
+        assertEquals(List.of(untimed1, untimed2), manager.getPrioritizedTasks(point2.getId(), 2),
+                "После задач со временем страница продолжается задачами без времени");
+        assertEquals(List.of(untimed3), manager.getPrioritizedTasks(untimed2.getId(), 2));
+
+        manager.deleteTask(untimed2.getId());
+        manager.deleteTask(point1.getId());
+        assertEquals(List.of(point2, untimed1, untimed3), manager.getPrioritizedTasks(), "Удаление должно " +
+                "убирать именно указанную задачу");
+    }
+
+    @Test
+    void testPrioritizedTasksFollowStartChangedThroughSetter() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task first = new Task("First", "Description");
+        first.setStartTime(start);
+        first.setDuration(Duration.ofMinutes(30));
+        manager.createTask(first);
+        Task second = new Task("Second", "Description");
+        second.setStartTime(start.plusHours(1));
+        second.setDuration(Duration.ofMinutes(30));
+        manager.createTask(second);
+
+        // Сохранённый объект меняется через сеттер, затем обновляется в менеджере
+        first.setStartTime(start.plusHours(2));
+        manager.updateTask(first);
+
+        assertEquals(List.of(second, first), manager.getPrioritizedTasks(), "Задача должна переместиться, " +
+                "а не задвоиться");
+        manager.deleteTask(first.getId());
+        assertEquals(List.of(second), manager.getPrioritizedTasks());
+    }
+
+    @Test
+    void testScheduleNextPlacesTaskIntoEarliestGap() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task morning = new Task("Morning", "Description");
+        morning.setStartTime(start);
+        morning.setDuration(Duration.ofMinutes(60));
+        manager.createTask(morning);
+        Task noon = new Task("Noon", "Description");
+        noon.setStartTime(start.plusMinutes(90));
+        noon.setDuration(Duration.ofMinutes(60));
+        manager.createTask(noon);
+
+        Task short1 = new Task("Short", "Description");
+        short1.setStartTime(start);
+        short1.setDuration(Duration.ofMinutes(30));
+        assertEquals(start.plusMinutes(60), manager.scheduleNext(short1).getStartTime(), "Короткая задача " +
+                "должна попасть в промежуток между задачами");
+
+        Task longTask = new Task("Long", "Description");
+        longTask.setStartTime(start);
+        longTask.setDuration(Duration.ofMinutes(45));
+        assertEquals(start.plusMinutes(150), manager.scheduleNext(longTask).getStartTime(), "Длинная задача " +
+                "должна встать после последней");
+
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        subtask.setStartTime(start);
+        subtask.setDuration(Duration.ofMinutes(15));
+        manager.scheduleNext(subtask);
+        assertEquals(start.plusMinutes(195), subtask.getStartTime());
+        assertEquals(List.of(subtask), manager.getSubtasksByEpic(epic.getId()), "Подзадача должна быть создана");
+
+        assertEquals(List.of(new TimeSlot(start.plusMinutes(210), start.plusMinutes(240))),
+                manager.findFreeSlots(Duration.ofMinutes(20), start, start.plusMinutes(240)));
+        assertThrows(IllegalArgumentException.class, () -> manager.scheduleNext(new Task("Untimed", "Description")),
+                "Без длительности задачу нельзя запланировать");
+    }
+
+    @Test
+    void testCreateAllIsAllOrNothing() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Task existing = new Task("Existing", "Description");
+        existing.setStartTime(start);
+        existing.setDuration(Duration.ofMinutes(60));
+        manager.createTask(existing);
+
+        Task first = new Task("First", "Description");
+        first.setStartTime(start.plusHours(2));
+        first.setDuration(Duration.ofMinutes(60));
+        Subtask overlapping = new Subtask("Overlapping", "Description", epic.getId());
+        overlapping.setStartTime(start.plusMinutes(150));
+        overlapping.setDuration(Duration.ofMinutes(60));
+        assertThrows(IllegalArgumentException.class, () -> manager.createAll(List.of(first, overlapping)),
+                "Задачи пакета не должны пересекаться между собой");
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(start.plusMinutes(30));
+        assertThrows(IllegalArgumentException.class, () -> manager.createAll(List.of(clash)),
+                "Задачи пакета не должны пересекаться с существующими");
+        Subtask orphan = new Subtask("Orphan", "Description", 999);
+        assertThrows(NotFoundException.class, () -> manager.createAll(List.of(new Task("Ok", "Description"),
+                orphan)));
+        assertEquals(List.of(existing), manager.getAllTasks(), "Отклонённый пакет не должен создать ни одной " +
+                "задачи");
+        assertTrue(manager.getAllSubtasks().isEmpty());
+
+        Subtask done = new Subtask("Done", "Description", epic.getId());
+        done.setStatus(Status.DONE);
+        done.setStartTime(start.plusHours(4));
+        done.setDuration(Duration.ofMinutes(30));
+        Subtask doneToo = new Subtask("Done too", "Description", epic.getId());
+        doneToo.setStatus(Status.DONE);
+        List<Task> created = manager.createAll(List.of(first, done, doneToo, new Epic("New epic", "Description")));
+
+        assertEquals(4, created.size());
+        assertEquals(List.of(existing, first), manager.getAllTasks());
+        assertEquals(List.of(done, doneToo), manager.getSubtasksByEpic(epic.getId()));
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен пересчитаться по пакету подзадач");
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.DONE));
+        assertEquals(start.plusHours(4), epic.getStartTime());
+    }
+
+    @Test
+    void testDeleteAllByTypeRejectsOtherTypes() {
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        Task task = manager.createTask(new Task("Task", "Description"));
+
+        assertThrows(NotFoundException.class, () -> manager.deleteAll(TaskType.TASK,
+                List.of(task.getId(), epic.getId())), "Эпик не должен удаляться как задача");
+        assertThrows(NotFoundException.class, () -> manager.deleteAll(TaskType.SUBTASK, List.of(task.getId())));
+        assertEquals(1, manager.getAllTasks().size(), "При ошибке ничего не должно удаляться");
+        assertEquals(1, manager.getAllSubtasks().size());
+
+        manager.deleteAll(TaskType.SUBTASK, List.of(subtask.getId()));
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    void testUpdateAllAndDeleteAll() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task task1 = new Task("Task 1", "Description");
+        task1.setStartTime(start);
+        task1.setDuration(Duration.ofMinutes(60));
+        Task task2 = new Task("Task 2", "Description");
+        task2.setStartTime(start.plusHours(1));
+        task2.setDuration(Duration.ofMinutes(60));
+        manager.createAll(List.of(task1, task2));
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask1 = manager.createSubtask(new Subtask("Subtask 1", "Description", epic.getId()));
+        Subtask subtask2 = manager.createSubtask(new Subtask("Subtask 2", "Description", epic.getId()));
+
+        // Задачи меняются местами: по отдельности каждое обновление пересеклось бы с другой задачей
+        Task moved1 = new Task("Task 1", "Description");
+        moved1.setId(task1.getId());
+        moved1.setStartTime(start.plusHours(1));
+        moved1.setDuration(Duration.ofMinutes(60));
+        Task moved2 = new Task("Task 2", "Description");
+        moved2.setId(task2.getId());
+        moved2.setStartTime(start);
+        moved2.setDuration(Duration.ofMinutes(60));
+        manager.updateAll(List.of(moved1, moved2));
+        assertEquals(List.of(moved2, moved1), manager.getPrioritizedTasks().subList(0, 2));
+
+        Task missing = new Task("Missing", "Description");
+        missing.setId(999);
+        Task clash = new Task("Task 1", "Description");
+        clash.setId(task1.getId());
+        clash.setStartTime(start.plusMinutes(30));
+        assertThrows(NotFoundException.class, () -> manager.updateAll(List.of(clash, missing)));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateAll(List.of(clash)));
+        assertEquals(start.plusHours(1), manager.getTaskById(task1.getId()).getStartTime(), "Отклонённый пакет " +
+                "не должен менять задачи");
+
+        subtask1.setStatus(Status.DONE);
+        subtask2.setStatus(Status.DONE);
+        manager.updateAll(List.of(subtask1, subtask2));
+        assertEquals(Status.DONE, epic.getStatus());
+
+        assertThrows(NotFoundException.class, () -> manager.deleteAll(List.of(task1.getId(), 999)));
+        assertEquals(2, manager.getAllTasks().size(), "При неизвестном id ничего не должно удаляться");
+        manager.deleteAll(List.of(task1.getId(), subtask1.getId()));
+        assertEquals(List.of(moved2), manager.getAllTasks());
+        assertEquals(List.of(subtask2), manager.getSubtasksByEpic(epic.getId()));
+        manager.deleteAll(List.of(epic.getId()));
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Подзадачи удаляются вместе с эпиком");
+    }
+
+    @Test
+    void testChangeCountsGrowWithChanges() {
+        Task task = manager.createTask(new Task("Task", "Description"));
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        long tasks = manager.getChangeCount(TaskType.TASK);
+        long epics = manager.getChangeCount(TaskType.EPIC);
+        long subtasks = manager.getChangeCount(TaskType.SUBTASK);
+        long history = manager.getHistoryChangeCount();
+
+        manager.getAllTasks();
+        manager.getEpics(0, 10);
+        assertEquals(tasks, manager.getChangeCount(TaskType.TASK), "Чтение не должно менять номер");
+
+        manager.getTaskById(task.getId());
+        assertTrue(manager.getHistoryChangeCount() > history, "Просмотр меняет историю");
+        assertEquals(tasks, manager.getChangeCount(TaskType.TASK));
+
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        assertTrue(manager.getChangeCount(TaskType.SUBTASK) > subtasks);
+        assertTrue(manager.getChangeCount(TaskType.EPIC) > epics, "Эпик меняется вместе с подзадачами");
+        assertEquals(tasks, manager.getChangeCount(TaskType.TASK), "Другие коллекции не затрагиваются");
+
+        epics = manager.getChangeCount(TaskType.EPIC);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        assertTrue(manager.getChangeCount(TaskType.EPIC) > epics);
+
+        manager.deleteTask(task.getId());
+        assertTrue(manager.getChangeCount(TaskType.TASK) > tasks);
+    }
 }
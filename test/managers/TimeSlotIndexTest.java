@@ -0,0 +1,108 @@
+package managers;
+
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import tasks.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSlotIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static Task task(int id, long startMinute, long duration) {
+        Task task = new Task("Task " + id, "Description");
+        task.setId(id);
+        task.setStartMinute(startMinute);
+        task.setDurationMinutes(duration);
+        return task;
+    }
+
+    @Test
+    void testFreeSlotsAreClippedToWindow() {
+        TimeSlotIndex index = new TimeSlotIndex();
+        long base = Task.toEpochMinute(START);
+        index.add(task(1, base + 60, 60));  // 01:00-02:00
+        index.add(task(2, base + 150, 30)); // 02:30-03:00
+        index.add(task(3, base + 200, 0));  // точка в 03:20 делит промежуток
+
+        List<TimeSlot> slots = index.freeSlots(base + 30, base + 240, 20);
+        assertEquals(List.of(
+                new TimeSlot(START.plusMinutes(30), START.plusMinutes(60)),
+                new TimeSlot(START.plusMinutes(120), START.plusMinutes(150)),
+                new TimeSlot(START.plusMinutes(180), START.plusMinutes(200)),
+                new TimeSlot(START.plusMinutes(200), START.plusMinutes(240))), slots);
+        assertEquals(List.of(new TimeSlot(START.plusMinutes(200), START.plusMinutes(240))),
+                index.freeSlots(base + 30, base + 240, 35), "Промежутки короче длительности не подходят");
+    }
+
+    // Индекс, заполненный разом при загрузке, должен вести себя как собранный по одной задаче
+    @Test
+    void testRebuildMatchesIncrementalAdds() {
+        Random random = new Random(11);
+        long base = Task.toEpochMinute(START);
+        List<Task> tasks = new ArrayList<>();
+        TimeSlotIndex incremental = new TimeSlotIndex();
+        for (int id = 1; id <= 500; id++) {
+            Task task = task(id, base + random.nextInt(20_000), random.nextInt(60));
+            if (incremental.isAvailable(task)) {
+                incremental.add(task);
+                tasks.add(task);
+            }
+        }
+        tasks.add(new Task("Без времени", "Description"));
+        TimeSlotIndex rebuilt = new TimeSlotIndex();
+        rebuilt.rebuild(tasks);
+
+        for (int i = 0; i < 300; i++) {
+            if (i % 3 == 0) {
+                int id = tasks.get(random.nextInt(tasks.size() - 1)).getId();
+                incremental.remove(id);
+                rebuilt.remove(id);
+            }
+            long from = base + random.nextInt(20_000);
+            long duration = 1 + random.nextInt(90);
+            assertEquals(incremental.earliestStart(from, duration), rebuilt.earliestStart(from, duration),
+                    "Поиск места должен совпадать");
+            assertEquals(incremental.freeSlots(from, from + 600, duration), rebuilt.freeSlots(from, from + 600,
+                    duration), "Свободные промежутки должны совпадать");
+            assertEquals(incremental.between(from, from + 600), rebuilt.between(from, from + 600));
+        }
+    }
+
+    // Случайные добавления и удаления сравниваются с перебором по isAvailable
+    @Test
+    void testEarliestStartMatchesBruteForce() {
+        Random random = new Random(7);
+        TimeSlotIndex index = new TimeSlotIndex();
+        long base = Task.toEpochMinute(START);
+        int nextId = 1;
+        List<Integer> ids = new ArrayList<>();
+
+        for (int i = 0; i < 3_000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                Task task = task(nextId, base + random.nextInt(2_000), random.nextInt(40));
+                if (index.isAvailable(task)) {
+                    index.add(task);
+                    ids.add(nextId);
+                }
+                nextId++;
+            } else {
+                index.remove(ids.remove(random.nextInt(ids.size())));
+            }
+
+            long from = base + random.nextInt(2_000);
+            long duration = 1 + random.nextInt(60);
+            long expected = from;
+            while (!index.isAvailable(expected, expected + duration)) {
+                expected++;
+            }
+            assertEquals(expected, index.earliestStart(from, duration), "Индекс промежутков должен находить " +
+                    "то же самое раннее место, что и перебор");
+        }
+    }
+}
@@ -2,6 +2,11 @@ package tasks;
 import managers.InMemoryTaskManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -25,4 +30,162 @@ class EpicTest {
             }
         });
     }
+
+    @Test
+    void testEpicTimeFollowsSubtaskChanges() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Subtask first = new Subtask("First", "Description", epic.getId());
+        first.setStartTime(start.plusHours(2));
+        first.setDuration(Duration.ofMinutes(30));
+        manager.createSubtask(first);
+
+        Subtask second = new Subtask("Second", "Description", epic.getId());
+        second.setStartTime(start);
+        second.setDuration(Duration.ofMinutes(60));
+        manager.createSubtask(second);
+
+        Subtask untimed = new Subtask("Untimed", "Description", epic.getId());
+        untimed.setDuration(Duration.ofMinutes(15));
+        manager.createSubtask(untimed);
+
+        assertEquals(start, epic.getStartTime(), "Начало эпика - самое раннее начало подзадачи");
+        assertEquals(start.plusHours(2).plusMinutes(30), epic.getEndTime(), "Конец эпика - самый поздний конец");
+        assertEquals(Duration.ofMinutes(105), epic.getDuration(), "Длительность эпика - сумма длительностей");
+
+        first.setStartTime(start.plusHours(5));
+        manager.updateSubtask(first);
+        assertEquals(start.plusHours(5).plusMinutes(30), epic.getEndTime(), "Конец эпика должен сдвинуться");
+
+        manager.deleteSubtask(second.getId());
+        assertEquals(start.plusHours(5), epic.getStartTime(), "Начало эпика должно пересчитаться после удаления");
+        assertEquals(Duration.ofMinutes(45), epic.getDuration(), "Длительность должна уменьшиться");
+
+        manager.deleteAllSubtasks();
+        assertNull(epic.getStartTime(), "У эпика без подзадач нет начала");
+        assertNull(epic.getEndTime(), "У эпика без подзадач нет конца");
+        assertEquals(Duration.ZERO, epic.getDuration(), "У эпика без подзадач нулевая длительность");
+        assertEquals(Status.NEW, epic.getStatus(), "Эпик без подзадач имеет статус NEW");
+    }
+
+    @Test
+    void testEpicStatusUsesReplacedSubtaskVersion() {
+        Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+        manager.createSubtask(subtask);
+
+        Subtask newVersion = new Subtask("Subtask", "Description", epic.getId());
+        newVersion.setId(subtask.getId());
+        newVersion.setStatus(Status.DONE);
+        manager.updateSubtask(newVersion);
+
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен учитывать новую версию подзадачи");
+        assertSame(newVersion, epic.getSubtasks().get(0), "Эпик должен хранить новую версию подзадачи");
+    }
+
+    @Test
+    void testSubtaskOrderSurvivesReplaceAndRemove() {
+        Subtask first = manager.createSubtask(new Subtask("First", "Description", epic.getId()));
+        Subtask second = manager.createSubtask(new Subtask("Second", "Description", epic.getId()));
+        Subtask third = manager.createSubtask(new Subtask("Third", "Description", epic.getId()));
+
+        Subtask newSecond = new Subtask("Second", "Updated", epic.getId());
+        newSecond.setId(second.getId());
+        manager.updateSubtask(newSecond);
+        assertEquals(List.of(first, newSecond, third), epic.getSubtasks(),
+                "Новая версия подзадачи должна остаться на прежнем месте");
+        assertSame(newSecond, epic.getSubtasks().get(1), "Эпик должен хранить новую версию подзадачи");
+
+        manager.deleteSubtask(first.getId());
+        assertEquals(List.of(newSecond, third), epic.getSubtasks(),
+                "После удаления порядок остальных подзадач сохраняется");
+    }
+
+    @Test
+    void testDirectRecalculationSeesSubtasksChangedThroughSetters() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        assertEquals(Status.NEW, epic.getStatus());
+
+        subtask.setStatus(Status.DONE);
+        subtask.setStartTime(start);
+        subtask.setDuration(Duration.ofMinutes(30));
+        epic.updateStatus();
+        epic.updateTimeAndDuration();
+
+        assertEquals(Status.DONE, epic.getStatus(), "updateStatus должен учитывать текущий статус подзадачи");
+        assertEquals(start, epic.getStartTime(), "updateTimeAndDuration должен учитывать текущее время подзадачи");
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+    }
+
+    @Test
+    void testSubtaskListCanBeChangedDirectly() {
+        Subtask first = new Subtask("First", "Description", epic.getId());
+        first.setId(101);
+        first.setStatus(Status.DONE);
+        Subtask second = new Subtask("Second", "Description", epic.getId());
+        second.setId(102);
+
+        epic.getSubtasks().add(first);
+        epic.getSubtasks().add(0, second);
+        assertEquals(List.of(second, first), epic.getSubtasks(), "Список подзадач должен изменяться как обычный");
+        epic.updateStatus();
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус должен учитывать добавленные подзадачи");
+
+        assertTrue(epic.getSubtasks().remove(second));
+        epic.updateStatus();
+        assertEquals(Status.DONE, epic.getStatus(), "Статус должен учитывать удаление из списка");
+
+        Subtask replacement = new Subtask("Replacement", "Description", epic.getId());
+        replacement.setId(103);
+        epic.getSubtasks().set(0, replacement);
+        epic.addSubtask(second);
+        assertEquals(List.of(replacement, second), epic.getSubtasks());
+        assertEquals(Status.NEW, epic.getStatus(), "Агрегаты должны строиться по списку после прямых изменений");
+
+        epic.getSubtasks().removeIf(subtask -> subtask.getId() == 103);
+        epic.getSubtasks().clear();
+        epic.updateStatus();
+        assertTrue(epic.getSubtasks().isEmpty());
+        assertEquals(Status.NEW, epic.getStatus());
+    }
+
+    // Кэш JSON действителен только для версии, под которую построен; эпик меняет версию вместе с подзадачами
+    @Test
+    public void testCachedJsonIsInvalidatedByChanges() {
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(1);
+        byte[] json = {'{', '}'};
+        epic.setCachedJson(json, epic.getVersion());
+        assertSame(json, epic.getCachedJson(), "Без изменений кэш должен использоваться");
+
+        Subtask subtask = new Subtask("Subtask", "Description", 1);
+        subtask.setId(2);
+        epic.addSubtask(subtask);
+        assertNull(epic.getCachedJson(), "После добавления подзадачи кэш эпика устаревает");
+
+        epic.setCachedJson(json, epic.getVersion());
+        subtask.setStatus(Status.DONE);
+        epic.updateSubtask(subtask);
+        assertNull(epic.getCachedJson(), "После обновления подзадачи кэш эпика устаревает");
+
+        epic.setCachedJson(json, epic.getVersion());
+        subtask.setTitle("Renamed subtask");
+        assertNull(epic.getCachedJson(), "Изменение подзадачи в обход эпика тоже делает его JSON устаревшим");
+
+        long staleVersion = epic.getVersion();
+        epic.setTitle("Renamed");
+        epic.setCachedJson(json, staleVersion);
+        assertNull(epic.getCachedJson(), "JSON, построенный до изменения, не должен использоваться");
+
+        Subtask replacement = new Subtask("Subtask", "Replacement", 1);
+        replacement.setId(2);
+        epic.updateSubtask(replacement);
+        epic.setCachedJson(json, epic.getVersion());
+        subtask.setTitle("Old version");
+        assertSame(json, epic.getCachedJson(), "Заменённая версия подзадачи больше не влияет на эпик");
+
+        epic.removeSubtask(replacement);
+        epic.setCachedJson(json, epic.getVersion());
+        replacement.setTitle("Removed");
+        assertSame(json, epic.getCachedJson(), "Удалённая подзадача больше не влияет на эпик");
+    }
 }
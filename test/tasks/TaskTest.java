@@ -1,10 +1,15 @@
 package tasks;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.junit.jupiter.api.Test;
+import utils.DurationTypeAdapter;
+import utils.LocalDateTimeTypeAdapter;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class TaskTest {
     // проверьте, что экземпляры класса Task равны друг другу, если равен их id
@@ -48,4 +53,51 @@ class TaskTest {
         subtask2.setId(2);
         assertNotEquals(subtask1, subtask2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTimeIsStoredInMinutes() {
+        Task task = new Task("Task", "Description");
+        assertFalse(task.hasStartTime(), "У новой задачи нет времени начала");
+        assertNull(task.getStartTime());
+        assertNull(task.getEndTime());
+        assertEquals(Task.NO_TIME, task.getEndMinute());
+        assertEquals(Duration.ZERO, task.getDuration());
+
+        task.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 15, 42));
+        task.setDuration(Duration.ofMinutes(50));
+
+        assertEquals(LocalDateTime.of(2030, 1, 1, 10, 15), task.getStartTime(), "Секунды должны отбрасываться");
+        assertEquals(LocalDateTime.of(2030, 1, 1, 11, 5), task.getEndTime());
+        assertEquals(task.getStartMinute() + 50, task.getEndMinute());
+
+        task.setStartTime(null);
+        task.setDuration(null);
+        assertFalse(task.hasStartTime());
+        assertEquals(0, task.getDurationMinutes(), "null - нулевая длительность");
+    }
+
+    // Задача из JSON без startTime не должна получить время 1970-01-01 от нулевого поля
+    @Test
+    public void testJsonKeepsFormatAndMissingTime() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+        Task task = new Task("Task", "Description");
+        task.setId(1);
+        task.setDuration(Duration.ofMinutes(30));
+        task.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 0));
+
+        assertEquals("{\"id\":1,\"title\":\"Task\",\"description\":\"Description\",\"status\":\"NEW\"," +
+                "\"duration\":30,\"startTime\":\"2030-01-01T10:00:00\"}", gson.toJson(task));
+
+        Subtask subtask = gson.fromJson("{\"title\":\"Subtask\",\"epicId\":3,\"duration\":\"PT45M\"}",
+                Subtask.class);
+        assertFalse(subtask.hasStartTime(), "Задача без startTime в JSON должна остаться без времени");
+        assertEquals(45, subtask.getDurationMinutes());
+
+        Epic epic = gson.fromJson("{\"title\":\"Epic\"}", Epic.class);
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+    }
+}
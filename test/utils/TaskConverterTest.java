@@ -0,0 +1,100 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskConverterTest {
+    @Test
+    void testFormatMatchesPreviousLayout() {
+        Task task = new Task("Task", "Description");
+        task.setId(1);
+        task.setStatus(Status.NEW);
+        task.setDuration(Duration.ofMinutes(90));
+        task.setStartTime(LocalDateTime.of(2024, 3, 5, 7, 9));
+        assertEquals("1,TASK,Task,NEW,Description,90,2024-03-05 07:09", TaskConverter.toString(task));
+
+        Subtask subtask = new Subtask("Subtask", "Description", 1);
+        subtask.setId(2);
+        subtask.setStatus(Status.DONE);
+        assertEquals("2,SUBTASK,Subtask,DONE,Description,0,,1", TaskConverter.toString(subtask));
+    }
+
+    @Test
+    void testQuotedFieldsRoundTrip() {
+        Subtask subtask = new Subtask("Купить молоко, хлеб", "Сказать \"спасибо\"\nи уйти", 7);
+        subtask.setId(3);
+        subtask.setStatus(Status.IN_PROGRESS);
+        subtask.setDuration(Duration.ofMinutes(15));
+        subtask.setStartTime(LocalDateTime.of(2030, 12, 31, 23, 45));
+
+        String line = TaskConverter.toString(subtask);
+        Subtask restored = (Subtask) TaskConverter.fromString(line);
+
+        assertEquals(subtask.getTitle(), restored.getTitle(), "Название с запятой должно сохраниться");
+        assertEquals(subtask.getDescription(), restored.getDescription(), "Кавычки и перевод строки должны " +
+                "сохраниться");
+        assertEquals(Status.IN_PROGRESS, restored.getStatus());
+        assertEquals(subtask.getDuration(), restored.getDuration());
+        assertEquals(subtask.getStartTime(), restored.getStartTime());
+        assertEquals(7, restored.getEpicId());
+        assertEquals(line.length(), TaskConverter.recordEnd(line + "\n", 0), "Перевод строки в кавычках не " +
+                "должен завершать запись");
+    }
+
+    @Test
+    void testParsesRecordInsideLargerText() {
+        String content = "PUT,5,EPIC,Epic,NEW,Description,0,\r\nPUT,6,TASK,Task,DONE,,30,2024-01-01 10:00\n";
+        int end = TaskConverter.recordEnd(content, 0);
+
+        Task epic = TaskConverter.fromString(content, 4, end);
+        assertEquals(TaskType.EPIC, epic.getType());
+        assertEquals(5, epic.getId());
+        assertNull(epic.getStartTime());
+
+        Task task = TaskConverter.fromString(content, end + 5, TaskConverter.recordEnd(content, end + 1));
+        assertEquals(6, task.getId());
+        assertEquals("", task.getDescription());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), task.getStartTime());
+    }
+
+    @Test
+    void testRejectsMalformedLines() {
+        assertThrows(IllegalArgumentException.class, () -> TaskConverter.fromString("1,TASK,Task,NEW"),
+                "Строка с недостающими полями должна отклоняться");
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskConverter.fromString("1,SUBTASK,Subtask,NEW,Description,0,"),
+                "Подзадача без эпика должна отклоняться");
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskConverter.fromString("1,UNKNOWN,Task,NEW,Description,0,"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskConverter.fromString("1,TASK,\"Task,NEW,Description,0,"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskConverter.fromString("1,TASK,Task,NEW,Description,0,2030-02-29 10:00"),
+                "Несуществующая дата должна отклоняться");
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskConverter.fromString("1,TASK,Task,NEW,Description,0,2030-01-01 24:00"));
+    }
+
+    // Дата пишется и читается из минут от эпохи без LocalDateTime: сверка с java.time на разных годах
+    @Test
+    void testDatesMatchJavaTime() {
+        LocalDateTime time = LocalDateTime.of(1600, 2, 28, 23, 59);
+        while (time.getYear() < 2500) {
+            Task task = new Task("Task", "Description");
+            task.setId(1);
+            task.setStartTime(time);
+            String line = TaskConverter.toString(task);
+            assertTrue(line.endsWith(String.format(",%04d-%02d-%02d %02d:%02d", time.getYear(), time.getMonthValue(),
+                    time.getDayOfMonth(), time.getHour(), time.getMinute())), line);
+            assertEquals(time, TaskConverter.fromString(line).getStartTime());
+            time = time.plusDays(37).plusMinutes(61);
+        }
+        Task leap = TaskConverter.fromString("1,TASK,Task,NEW,Description,0,2000-02-29 00:00");
+        assertEquals(LocalDateTime.of(2000, 2, 29, 0, 0), leap.getStartTime());
+    }
+}
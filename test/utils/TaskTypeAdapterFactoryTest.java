@@ -0,0 +1,89 @@
+package utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTypeAdapterFactoryTest {
+    private static final Gson reflective = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .create();
+    private static final Gson streaming = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskTypeAdapterFactory())
+            .create();
+    private static final Gson subtaskIds = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskTypeAdapterFactory(true))
+            .create();
+
+    private static List<Task> sample() {
+        Task task = new Task("Задача, \"в кавычках\" <b>", null);
+        task.setId(1);
+        task.setDuration(Duration.ofMinutes(30));
+        task.setStartTime(LocalDateTime.of(2030, 1, 1, 10, 0));
+
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(2);
+        Subtask subtask = new Subtask("Subtask", "Description", 2);
+        subtask.setId(3);
+        subtask.setStatus(Status.DONE);
+        subtask.setDuration(Duration.ofMinutes(15));
+        subtask.setStartTime(LocalDateTime.of(2030, 1, 1, 12, 0));
+        epic.addSubtask(subtask);
+
+        Epic empty = new Epic("Empty", "Description");
+        empty.setId(4);
+        return List.of(task, epic, subtask, empty);
+    }
+
+    @Test
+    void testOutputMatchesReflectiveGson() {
+        List<Task> tasks = sample();
+
+        assertEquals(reflective.toJson(tasks), streaming.toJson(tasks), "Формат списка не должен измениться");
+        for (Task task : tasks) {
+            assertEquals(reflective.toJson(task), streaming.toJson(task), "Формат задачи не должен измениться");
+        }
+    }
+
+    @Test
+    void testReadsSameFieldsAsReflectiveGson() {
+        String json = "{\"id\":5,\"title\":\"x\",\"duration\":\"PT1H\",\"startTime\":\"2030-01-01T10:00:30\","
+                + "\"unknown\":[1,{\"a\":2}],\"epicId\":7}";
+        Subtask expected = reflective.fromJson(json, Subtask.class);
+        Subtask actual = streaming.fromJson(json, Subtask.class);
+
+        assertEquals(expected.toString(), actual.toString(), "Поля должны читаться так же, как раньше");
+        assertNull(actual.getStatus(), "Отсутствующий статус остаётся null");
+
+        String tasksJson = streaming.toJson(sample());
+        List<Task> expectedTasks = reflective.fromJson(tasksJson, new TypeToken<List<Task>>() {}.getType());
+        List<Task> restored = streaming.fromJson(tasksJson, new TypeToken<List<Task>>() {}.getType());
+        assertEquals(reflective.toJson(expectedTasks), streaming.toJson(restored), "Элементы List<Task> " +
+                "читаются как Task, как и раньше");
+
+        Epic epic = streaming.fromJson(streaming.toJson(sample().get(1)), Epic.class);
+        assertEquals(1, epic.getSubtasks().size(), "Вложенные подзадачи должны прочитаться");
+        assertEquals(LocalDateTime.of(2030, 1, 1, 12, 15), epic.getEndTime(), "Конец эпика вычисляется " +
+                "по подзадачам");
+    }
+
+    @Test
+    void testEpicWithSubtaskIdsOnly() {
+        Epic epic = (Epic) sample().get(1);
+
+        assertEquals("{\"subtaskIds\":[3],\"endTime\":\"2030-01-01T12:15:00\",\"id\":2,\"title\":\"Epic\","
+                + "\"description\":\"Description\",\"status\":\"DONE\",\"duration\":15,"
+                + "\"startTime\":\"2030-01-01T12:00:00\"}", subtaskIds.toJson(epic));
+        assertTrue(subtaskIds.fromJson(subtaskIds.toJson(epic), Epic.class).getSubtasks().isEmpty(),
+                "Список id не превращается в подзадачи");
+    }
+}